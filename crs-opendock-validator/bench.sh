@@ -0,0 +1,56 @@
+#!/bin/bash
+# JMH benchmarks for CRS OneSource OpenDock PO Validator
+# =====================================================
+#
+# Usage:
+#   ./bench.sh                       # all benchmarks, throughput + average time + GC profile
+#   ./bench.sh JsonBenchmark         # benchmarks matching a regex
+#   ./bench.sh -f 1 -wi 1 -i 3 Json  # any other JMH options are passed through
+
+set -e
+
+PROJECT_DIR="$(cd "$(dirname "$0")" && pwd)"
+SRC_DIR="$PROJECT_DIR/src/main/java"
+JMH_SRC_DIR="$PROJECT_DIR/src/jmh/java"
+LIB_DIR="$PROJECT_DIR/lib"
+JMH_LIB_DIR="$LIB_DIR/jmh"
+BUILD_DIR="$PROJECT_DIR/build-jmh"
+
+JMH_VERSION="1.37"
+MAVEN="https://repo1.maven.org/maven2"
+
+mkdir -p "$JMH_LIB_DIR"
+mkdir -p "$BUILD_DIR"
+
+# Download JMH and its dependencies on first use
+fetch() {
+    local path="$1"
+    local jar="$JMH_LIB_DIR/$(basename "$path")"
+    if [ ! -f "$jar" ]; then
+        echo "Downloading $(basename "$path")..."
+        curl -fL -o "$jar" "$MAVEN/$path"
+    fi
+}
+
+fetch "org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar"
+fetch "org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar"
+fetch "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar"
+fetch "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+
+CLASSPATH="$LIB_DIR/gson-2.10.1.jar:$JMH_LIB_DIR/*"
+
+echo "Compiling application and benchmark sources..."
+find "$SRC_DIR" "$JMH_SRC_DIR" -name "*.java" > "$BUILD_DIR/sources.txt"
+
+javac -d "$BUILD_DIR" \
+    -cp "$CLASSPATH" \
+    -source 11 \
+    -target 11 \
+    -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+    @"$BUILD_DIR/sources.txt"
+
+echo "Running benchmarks..."
+exec java -cp "$BUILD_DIR:$CLASSPATH" org.openjdk.jmh.Main \
+    -bm thrpt,avgt \
+    -prof gc \
+    "$@"
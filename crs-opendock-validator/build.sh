@@ -52,7 +52,11 @@ jar cfm "$DIST_DIR/$JAR_NAME" MANIFEST.MF \
     com/pollaminllc/crs/*.class \
     com/pollaminllc/crs/model/*.class \
     com/pollaminllc/crs/data/*.class \
-    com/pollaminllc/crs/util/*.class
+    com/pollaminllc/crs/util/*.class \
+    com/pollaminllc/crs/metrics/*.class \
+    com/pollaminllc/crs/jfr/*.class \
+    com/pollaminllc/crs/resilience/*.class \
+    com/pollaminllc/crs/rules/*.class
 
 cd "$PROJECT_DIR"
 
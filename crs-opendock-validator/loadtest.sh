@@ -0,0 +1,34 @@
+#!/bin/bash
+# End-to-end load test for CRS OneSource OpenDock PO Validator
+# ============================================================
+#
+# Starts the validator in-process on a random local port (StubRepository with
+# artificial latency) and drives /validate over loopback. No network needed.
+#
+# Usage:
+#   ./loadtest.sh --mode closed --concurrency 64 --duration 30
+#   ./loadtest.sh --mode open --rate 2000 --stub-latency-ms 50 --prop server.threads=50
+#   ./loadtest.sh --help
+
+set -e
+
+PROJECT_DIR="$(cd "$(dirname "$0")" && pwd)"
+SRC_DIR="$PROJECT_DIR/src/main/java"
+LOADTEST_SRC_DIR="$PROJECT_DIR/src/loadtest/java"
+LIB_DIR="$PROJECT_DIR/lib"
+BUILD_DIR="$PROJECT_DIR/build-loadtest"
+
+CLASSPATH="$LIB_DIR/gson-2.10.1.jar"
+
+mkdir -p "$BUILD_DIR"
+
+echo "Compiling application and load-test sources..."
+find "$SRC_DIR" "$LOADTEST_SRC_DIR" -name "*.java" > "$BUILD_DIR/sources.txt"
+
+javac -d "$BUILD_DIR" \
+    -cp "$CLASSPATH" \
+    -source 11 \
+    -target 11 \
+    @"$BUILD_DIR/sources.txt"
+
+exec java -Xms256m -Xmx256m -cp "$BUILD_DIR:$CLASSPATH" com.pollaminllc.crs.loadtest.LoadTest "$@"
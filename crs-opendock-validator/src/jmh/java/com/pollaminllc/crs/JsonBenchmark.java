@@ -0,0 +1,79 @@
+package com.pollaminllc.crs;
+
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+import com.pollaminllc.crs.util.JsonUtil;
+import com.pollaminllc.crs.util.WebhookJsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request parsing and response encoding: the Gson path (JsonUtil, ValidationResult.toJson)
+ * next to the hand-written WebhookJsonCodec.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private static final String REQUEST_JSON =
+        "{\"action\":\"update\"," +
+        "\"appointmentFields\":{\"refNumber\":\"PO-12345\",\"start\":\"2024-03-15T10:00:00Z\"," +
+        "\"end\":\"2024-03-15T11:00:00Z\",\"status\":\"Scheduled\",\"dockId\":\"dock-7\"," +
+        "\"warehouseId\":\"wh-1\",\"notes\":\"unknown field\",\"tags\":[\"a\",\"b\"]}," +
+        "\"existingAppointment\":{\"refNumber\":\"PO-12345\",\"start\":\"2024-03-14T10:00:00Z\"}}";
+
+    private ValidationResult success;
+    private ValidationResult error;
+
+    @Setup
+    public void setUp() {
+        success = ValidationResult.success("Appointment with PO Number PO-12345 is valid");
+        error = ValidationResult.notFound(
+            "No records found for PO Number: PO-12345. Please verify the PO number and try again.");
+    }
+
+    @Benchmark
+    public WebhookRequest parseGson() {
+        return JsonUtil.fromJson(REQUEST_JSON, WebhookRequest.class);
+    }
+
+    @Benchmark
+    public WebhookRequest parseCodec() {
+        return WebhookJsonCodec.readWebhookRequest(new StringReader(REQUEST_JSON));
+    }
+
+    @Benchmark
+    public String toJsonSuccess() {
+        return success.toJson();
+    }
+
+    @Benchmark
+    public String toJsonError() {
+        return error.toJson();
+    }
+
+    @Benchmark
+    public int encodeCodecSuccess() {
+        return WebhookJsonCodec.encode(success).length();
+    }
+
+    @Benchmark
+    public int encodeCodecError() {
+        return WebhookJsonCodec.encode(error).length();
+    }
+}
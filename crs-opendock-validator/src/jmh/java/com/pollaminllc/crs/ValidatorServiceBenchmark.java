@@ -0,0 +1,78 @@
+package com.pollaminllc.crs;
+
+import com.pollaminllc.crs.data.StubRepository;
+import com.pollaminllc.crs.model.AppointmentFields;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValidatorService.validate against StubRepository for the main request shapes.
+ * Run with bench.sh (adds -prof gc for allocation rates).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidatorServiceBenchmark {
+
+    private ValidatorService service;
+    private WebhookRequest found;
+    private WebhookRequest notFound;
+    private WebhookRequest cancellation;
+    private WebhookRequest badFormat;
+
+    @Setup
+    public void setUp() {
+        service = new ValidatorService(new StubRepository());
+        found = request("create", "PO-001", "Scheduled");
+        notFound = request("create", "NOTFOUND", "Scheduled");
+        cancellation = request("update", "PO-001", "Cancelled");
+        badFormat = request("create", "PO 001 / bad", "Scheduled");
+    }
+
+    @Benchmark
+    public ValidationResult validateFound() {
+        return service.validate(found);
+    }
+
+    @Benchmark
+    public ValidationResult validateNotFound() {
+        return service.validate(notFound);
+    }
+
+    @Benchmark
+    public ValidationResult validateCancellation() {
+        return service.validate(cancellation);
+    }
+
+    @Benchmark
+    public ValidationResult validateBadFormat() {
+        return service.validate(badFormat);
+    }
+
+    private static WebhookRequest request(String action, String refNumber, String status) {
+        AppointmentFields fields = new AppointmentFields();
+        fields.setRefNumber(refNumber);
+        fields.setStart("2024-03-15T10:00:00Z");
+        fields.setStatus(status);
+
+        WebhookRequest request = new WebhookRequest();
+        request.setAction(action);
+        request.setAppointmentFields(fields);
+        return request;
+    }
+}
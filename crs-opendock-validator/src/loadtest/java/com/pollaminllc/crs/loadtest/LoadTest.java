@@ -0,0 +1,388 @@
+package com.pollaminllc.crs.loadtest;
+
+import com.pollaminllc.crs.Main;
+import com.pollaminllc.crs.data.PurchaseOrderRepository;
+import com.pollaminllc.crs.data.StubRepository;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load generator for the /validate webhook.
+ *
+ * Starts the real server in-process on a random port, backed by a StubRepository with
+ * artificial latency, drives it over loopback HTTP and reports latency percentiles.
+ *
+ * Modes:
+ * - closed: --concurrency clients each send the next request as soon as the previous one answers
+ * - open:   requests are issued at a fixed --rate regardless of responses; latency is measured
+ *           from each request's scheduled send time, so queueing delay is not hidden
+ *
+ * Run with loadtest.sh; --help lists all options.
+ */
+public final class LoadTest {
+
+    private static final String TOKEN = "loadtest-token";
+
+    private final Options options;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private volatile boolean recording;
+
+    private HttpClient client;
+    private URI validateUri;
+    private String[] bodies;
+
+    private LoadTest(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (options == null) {
+            return;
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("server.port", "0");
+        props.setProperty("auth.secret_token", TOKEN);
+        props.setProperty("log.level", "WARN");
+        props.putAll(options.serverProperties);
+        Config config = Config.fromProperties(props);
+        Logger.configure(config);
+
+        PurchaseOrderRepository repository =
+            Main.decorateRepository(config, new StubRepository(options.stubLatencyMs));
+        HttpServer server = Main.startServer(config, repository);
+        int port = server.getAddress().getPort();
+        validateUri = URI.create("http://127.0.0.1:" + port + "/validate");
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, options.clientThreads));
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(clientExecutor)
+            .build();
+        bodies = buildBodies(4096);
+
+        System.out.printf("Load test: mode=%s %s duration=%ds warmup=%ds stubLatency=%dms port=%d%n",
+            options.mode,
+            options.isOpen() ? "rate=" + options.rate + "/s" : "concurrency=" + options.concurrency,
+            options.durationSeconds, options.warmupSeconds, options.stubLatencyMs, port);
+        System.out.println("Server config: " + config);
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        Thread recorderSwitch = new Thread(() -> {
+            LockSupport.parkNanos(warmupEnd - System.nanoTime());
+            recording = true;
+        });
+        recorderSwitch.setDaemon(true);
+        recorderSwitch.start();
+
+        if (options.isOpen()) {
+            runOpenLoop(end);
+        } else {
+            runClosedLoop(end);
+        }
+        recording = false;
+
+        report(options.durationSeconds);
+
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+        clientExecutor.shutdownNow();
+        repository.close();
+        Logger.shutdown();
+    }
+
+    private void runClosedLoop(long end) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(nextRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    complete(start, status);
+                }
+            }, "loadtest-client-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void runOpenLoop(long end) throws InterruptedException {
+        long intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / Math.max(1, options.rate));
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+        long next = System.nanoTime();
+
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            long scheduled = next;
+            next += intervalNanos;
+
+            if (!inFlight.tryAcquire()) {
+                // Client side is saturated; count it rather than silently slowing the arrival rate
+                if (recording) {
+                    skipped.increment();
+                }
+                continue;
+            }
+            client.sendAsync(nextRequest(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    complete(scheduled, error == null ? response.statusCode() : -1);
+                    inFlight.release();
+                });
+        }
+
+        // Let outstanding requests finish so they are counted
+        inFlight.tryAcquire(options.maxInFlight, 30, TimeUnit.SECONDS);
+    }
+
+    private void complete(long startNanos, int status) {
+        if (!recording) {
+            return;
+        }
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        if (status < 0) {
+            transportErrors.increment();
+        } else {
+            statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    private HttpRequest nextRequest() {
+        String body = bodies[ThreadLocalRandom.current().nextInt(bodies.length)];
+        return HttpRequest.newBuilder(validateUri)
+            .timeout(Duration.ofMillis(options.timeoutMs * 4L))
+            .header("Authorization", "Bearer " + TOKEN)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    /**
+     * Pre-build request bodies following the action and PO mixes, so generating
+     * load costs nothing on the measured path.
+     */
+    private String[] buildBodies(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            String action = options.actionMix.pick(random);
+            String kind = options.poMix.pick(random);
+
+            String refNumber;
+            switch (kind) {
+                case "notfound":
+                    refNumber = "NOTFOUND";
+                    break;
+                case "bad":
+                    refNumber = "PO " + random.nextInt(1000) + "/X";
+                    break;
+                case "error":
+                    refNumber = "ERROR";
+                    break;
+                case "multi":
+                    refNumber = "MULTI";
+                    break;
+                default:
+                    refNumber = String.format("PO-%06d", random.nextInt(options.poCardinality));
+            }
+
+            boolean cancel = "cancel".equals(action);
+            String status = cancel ? "Cancelled" : "Scheduled";
+            String wireAction = "create".equals(action) ? "create" : "update";
+            String fields = String.format(
+                "{\"refNumber\":\"%s\",\"start\":\"2024-03-15T10:00:00Z\",\"status\":\"%s\",\"dockId\":\"dock-%d\"}",
+                refNumber, status, random.nextInt(20));
+
+            result[i] = "create".equals(wireAction)
+                ? String.format("{\"action\":\"create\",\"appointmentFields\":%s}", fields)
+                : String.format("{\"action\":\"update\",\"appointmentFields\":%s,\"existingAppointment\":%s}",
+                    fields, fields.replace("Cancelled", "Scheduled"));
+        }
+        return result;
+    }
+
+    private void report(int seconds) {
+        long count = histogram.count();
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, n) -> statuses.put(status, n.sum()));
+        long serverErrors = statuses.entrySet().stream()
+            .filter(e -> e.getKey() >= 500)
+            .mapToLong(Map.Entry::getValue)
+            .sum();
+
+        System.out.println();
+        System.out.println("=== Results ===");
+        System.out.printf("Requests:          %d (%.1f/s)%n", count, (double) count / Math.max(1, seconds));
+        System.out.printf("Statuses:          %s%n", statuses);
+        System.out.printf("Errors:            %d transport, %d 5xx%s%n",
+            transportErrors.sum(), serverErrors,
+            options.isOpen() ? ", " + skipped.sum() + " not sent (max in-flight reached)" : "");
+        System.out.printf("Latency (ms):      mean=%.2f%n", histogram.mean() / 1000.0);
+        System.out.printf("                   p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+            histogram.percentile(50) / 1000.0,
+            histogram.percentile(90) / 1000.0,
+            histogram.percentile(99) / 1000.0,
+            histogram.percentile(99.9) / 1000.0,
+            histogram.max() / 1000.0);
+        long slow = histogram.countAbove(TimeUnit.MILLISECONDS.toMicros(options.timeoutMs));
+        System.out.printf("Over %d ms:        %d (%.3f%%)%n",
+            options.timeoutMs, slow, count == 0 ? 0.0 : 100.0 * slow / count);
+    }
+
+    /**
+     * Weighted choice parsed from "name:weight,name:weight".
+     */
+    private static final class Mix {
+        private final String[] names;
+        private final int[] cumulative;
+
+        Mix(String spec) {
+            String[] parts = spec.split(",");
+            names = new String[parts.length];
+            cumulative = new int[parts.length];
+            int total = 0;
+            for (int i = 0; i < parts.length; i++) {
+                String[] kv = parts[i].trim().split(":");
+                names[i] = kv[0].trim().toLowerCase();
+                total += kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+                cumulative[i] = total;
+            }
+        }
+
+        String pick(ThreadLocalRandom random) {
+            int r = random.nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (r < cumulative[i]) {
+                    return names[i];
+                }
+            }
+            return names[names.length - 1];
+        }
+    }
+
+    private static final class Options {
+        String mode = "closed";
+        int concurrency = 32;
+        int rate = 500;
+        int maxInFlight = 10000;
+        int clientThreads = 8;
+        int durationSeconds = 30;
+        int warmupSeconds = 5;
+        long stubLatencyMs = 20;
+        int timeoutMs = 5000;
+        int poCardinality = 5000;
+        Mix actionMix = new Mix("create:60,update:30,cancel:10");
+        Mix poMix = new Mix("found:85,notfound:10,bad:4,error:1");
+        final Properties serverProperties = new Properties();
+
+        boolean isOpen() {
+            return "open".equals(mode);
+        }
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--help".equals(arg) || "-h".equals(arg)) {
+                    printUsage();
+                    return null;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--mode": o.mode = value.toLowerCase(); break;
+                    case "--concurrency": o.concurrency = Integer.parseInt(value); break;
+                    case "--rate": o.rate = Integer.parseInt(value); break;
+                    case "--max-in-flight": o.maxInFlight = Integer.parseInt(value); break;
+                    case "--client-threads": o.clientThreads = Integer.parseInt(value); break;
+                    case "--duration": o.durationSeconds = Integer.parseInt(value); break;
+                    case "--warmup": o.warmupSeconds = Integer.parseInt(value); break;
+                    case "--stub-latency-ms": o.stubLatencyMs = Long.parseLong(value); break;
+                    case "--timeout-ms": o.timeoutMs = Integer.parseInt(value); break;
+                    case "--po-cardinality": o.poCardinality = Integer.parseInt(value); break;
+                    case "--actions": o.actionMix = new Mix(value); break;
+                    case "--pos": o.poMix = new Mix(value); break;
+                    case "--prop":
+                        int eq = value.indexOf('=');
+                        if (eq <= 0) {
+                            throw new IllegalArgumentException("--prop expects key=value, got " + value);
+                        }
+                        o.serverProperties.setProperty(value.substring(0, eq), value.substring(eq + 1));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg + " (see --help)");
+                }
+            }
+            if (!"open".equals(o.mode) && !"closed".equals(o.mode)) {
+                throw new IllegalArgumentException("--mode must be open or closed");
+            }
+            return o;
+        }
+
+        static void printUsage() {
+            System.out.println(String.join("\n",
+                "Usage: loadtest.sh [options]",
+                "  --mode closed|open        closed: fixed concurrency; open: fixed arrival rate (default closed)",
+                "  --concurrency N           closed-loop clients (default 32)",
+                "  --rate N                  open-loop requests per second (default 500)",
+                "  --max-in-flight N         open-loop cap on outstanding requests (default 10000)",
+                "  --client-threads N        HTTP client threads (default 8)",
+                "  --duration S              measured seconds (default 30)",
+                "  --warmup S                unmeasured warmup seconds (default 5)",
+                "  --stub-latency-ms MS      artificial StubRepository latency (default 20)",
+                "  --timeout-ms MS           webhook timeout to report against (default 5000)",
+                "  --po-cardinality N        distinct found PO numbers (default 5000)",
+                "  --actions SPEC            action mix, e.g. create:60,update:30,cancel:10",
+                "  --pos SPEC                PO mix over found,notfound,bad,error,multi, e.g. found:85,notfound:10,bad:4,error:1",
+                "  --prop key=value          server config override (repeatable), e.g. --prop cache.enabled=false"
+            ));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.pollaminllc.crs;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.pollaminllc.crs.metrics.ValidatorMetrics;
+import com.pollaminllc.crs.metrics.ValidatorMetrics.Stage;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.BoundedInputStream;
+import com.pollaminllc.crs.util.BoundedInputStream.PayloadTooLargeException;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.JsonUtil;
+import com.pollaminllc.crs.util.Logger;
+import com.pollaminllc.crs.util.WebhookJsonCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HTTP handler for POST /validate/batch: many webhook requests in, one NDJSON line out per request.
+ *
+ * The body is a JSON array of webhook requests, or the requests one after another (NDJSON).
+ * It is read as a stream. Requests that ValidatorService.precheck decides are answered as
+ * soon as they are read; the rest are held until validate_batch.lookup_size of them are
+ * pending, and then their distinct PO numbers are resolved with one findByPoNumbers call and
+ * their lines written. Memory depends on the lookup size, not on the size of the batch.
+ *
+ * Each line is {"index":n,"refNumber":...,"status":...,"data"|"errorMessage":...}, where
+ * index is the request's position in the batch; lines are written as results complete, not
+ * in input order. Once the 200 is sent, a body that turns out malformed, goes past
+ * validate_batch.max_items, or has an item larger than server.max_body_bytes ends the
+ * stream with an error line for the item it stopped at. The item size is counted from
+ * the bytes read while parsing it, so it may be off by the reader's buffer (a few KB).
+ *
+ * Auth is the same as /validate. The batch runs on the I/O lane when there is one.
+ */
+public class BatchValidatorHandler implements HttpHandler {
+
+    private static final Logger LOG = Logger.get("BatchValidatorHandler");
+
+    private final ValidatorService validatorService;
+    private final Config config;
+    private final ValidatorMetrics metrics;
+    private final boolean useGson;
+    // Null: batches run on the HTTP thread
+    private final Executor ioExecutor;
+    private final int lookupSize;
+    private final int maxItems;
+    // Per item, like a /validate body
+    private final long maxItemBytes;
+
+    public BatchValidatorHandler(ValidatorService validatorService, Config config, ValidatorMetrics metrics,
+                                 Executor ioExecutor) {
+        this.validatorService = validatorService;
+        this.config = config;
+        this.metrics = metrics;
+        this.useGson = "gson".equalsIgnoreCase(config.getJsonCodec());
+        this.ioExecutor = ioExecutor;
+        this.lookupSize = Math.max(1, config.getValidateBatchLookupSize());
+        this.maxItems = config.getValidateBatchMaxItems();
+        this.maxItemBytes = config.getMaxBodyBytes();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        boolean handedOff = false;
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed. Use POST.");
+                return;
+            }
+
+            long stageStart = System.nanoTime();
+            boolean authorized = ValidatorHandler.isAuthorized(exchange, config);
+            metrics.recordStage(Stage.AUTH, System.nanoTime() - stageStart);
+            if (!authorized) {
+                sendError(exchange, 401, "Unauthorized. Invalid or missing Bearer token.");
+                return;
+            }
+
+            if (ioExecutor == null) {
+                stream(exchange);
+                return;
+            }
+            try {
+                ioExecutor.execute(() -> {
+                    try {
+                        stream(exchange);
+                    } finally {
+                        exchange.close();
+                    }
+                });
+                handedOff = true;
+            } catch (RejectedExecutionException e) {
+                metrics.recordIoLaneRejected();
+                LOG.warn("io_lane_full", "path", "/validate/batch");
+                sendError(exchange, 503, "Service temporarily unavailable: too many lookups in progress");
+            }
+        } finally {
+            if (!handedOff) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Read the batch and stream the results. Never throws: failures before the 200 is sent
+     * become an error response, later ones end the stream.
+     */
+    private void stream(HttpExchange exchange) {
+        long start = System.nanoTime();
+        Pending pending = new Pending(lookupSize);
+        int items = 0;
+        int lookups = 0;
+        BoundedInputStream body = new BoundedInputStream(exchange.getRequestBody(), maxItemBytes);
+        try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            JsonReader json = new JsonReader(reader);
+            // NDJSON is a sequence of top-level values, which only a lenient reader accepts
+            json.setLenient(true);
+
+            boolean array;
+            try {
+                JsonToken first = json.peek();
+                array = first == JsonToken.BEGIN_ARRAY;
+                if (!array && first != JsonToken.BEGIN_OBJECT) {
+                    throw new JsonParseException("Expected a JSON array or JSON objects, found " + first);
+                }
+                if (array) {
+                    json.beginArray();
+                }
+            } catch (EOFException e) {
+                sendError(exchange, 400, "Bad Request: Empty batch");
+                return;
+            } catch (PayloadTooLargeException e) {
+                sendError(exchange, 413, "Payload Too Large: batch item exceeds " + maxItemBytes + " bytes");
+                return;
+            } catch (MalformedJsonException | JsonParseException e) {
+                sendError(exchange, 400, "Bad Request: Invalid JSON - " + e.getMessage());
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                // Why the batch ended early; written last, after the pending requests are answered
+                int stopStatus = 0;
+                String stopMessage = null;
+                try {
+                    while (array ? json.hasNext() : json.peek() != JsonToken.END_DOCUMENT) {
+                        if (maxItems > 0 && items == maxItems) {
+                            stopStatus = 413;
+                            stopMessage = "Batch exceeds " + maxItems + " items; the rest was not validated";
+                            break;
+                        }
+                        int index = items;
+                        body.resetCount();
+                        WebhookRequest request = readRequest(json);
+                        items++;
+                        ValidationResult result = validatorService.precheck(request);
+                        if (result != null) {
+                            write(os, index, request, result);
+                            continue;
+                        }
+                        pending.add(index, request);
+                        if (pending.size == lookupSize) {
+                            resolve(pending, os);
+                            lookups++;
+                        }
+                    }
+                } catch (PayloadTooLargeException | MalformedJsonException | EOFException | JsonParseException
+                         | IllegalStateException | NumberFormatException e) {
+                    // The reader cannot resync after a syntax error, a truncated or an oversized item,
+                    // so the batch ends here
+                    if (ValidatorHandler.findCause(e, PayloadTooLargeException.class) != null) {
+                        stopStatus = 413;
+                        stopMessage = "Payload Too Large: item exceeds " + maxItemBytes
+                            + " bytes; the rest was not validated";
+                    } else {
+                        stopStatus = 400;
+                        stopMessage = "Bad Request: Invalid JSON - " + e.getMessage();
+                    }
+                }
+                if (pending.size > 0) {
+                    resolve(pending, os);
+                    lookups++;
+                }
+                if (stopMessage != null) {
+                    WebhookJsonCodec.encodeBatchError(items, stopStatus, stopMessage).writeTo(os);
+                }
+            }
+        } catch (Exception e) {
+            if (exchange.getResponseCode() == -1) {
+                LOG.error("batch_failed", e, "error", e.getMessage());
+                try {
+                    sendError(exchange, 500, "Internal server error: " + e.getMessage());
+                } catch (IOException sendFailed) {
+                    // Client is gone; the exchange is closed by the caller
+                }
+            } else {
+                // Usually the client went away mid-stream
+                LOG.warn("batch_aborted", "items", items, "error", e.getMessage());
+            }
+        } finally {
+            metrics.recordBatch(items);
+            LOG.info("batch", "items", items, "lookups", lookups,
+                "durationMs", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private WebhookRequest readRequest(JsonReader json) throws IOException {
+        return useGson
+            ? JsonUtil.fromJson(json, WebhookRequest.class)
+            : WebhookJsonCodec.readWebhookRequest(json);
+    }
+
+    /**
+     * Look up the distinct PO numbers of the pending requests in one call, answer each of
+     * them, and flush so the client sees this group's lines now.
+     */
+    private void resolve(Pending pending, OutputStream os) throws IOException {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < pending.size; i++) {
+            keys.addAll(validatorService.lookupKeys(pending.requests[i]));
+        }
+        metrics.recordBatchLookup(keys.size());
+
+        long lookedUpAt = System.nanoTime();
+        Deadline deadline = Deadline.startingAt(lookedUpAt, config.getDeadlineBudgetMs());
+        Map<String, List<PurchaseOrder>> found = null;
+        Exception failure = null;
+        try {
+            found = validatorService.lookupAll(keys, deadline);
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        for (int i = 0; i < pending.size; i++) {
+            WebhookRequest request = pending.requests[i];
+            ValidationResult result = failure == null
+                ? validatorService.validateLookedUp(request, found, lookedUpAt)
+                : validatorService.lookupFailed(request, failure, deadline);
+            write(os, pending.indexes[i], request, result);
+        }
+        os.flush();
+        pending.clear();
+    }
+
+    private static void write(OutputStream os, int index, WebhookRequest request, ValidationResult result)
+            throws IOException {
+        String refNumber = request == null ? null : request.getRefNumber();
+        WebhookJsonCodec.encodeBatchLine(index, refNumber, result).writeTo(os);
+    }
+
+    private static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        LOG.info("response", "status", statusCode, "message", message);
+        WebhookJsonCodec.ByteBuffer body = WebhookJsonCodec.encodeError(message);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length());
+        try (OutputStream os = exchange.getResponseBody()) {
+            body.writeTo(os);
+        }
+    }
+
+    /**
+     * Requests waiting for the next bulk lookup, with their positions in the batch.
+     * Reused for the whole batch.
+     */
+    private static final class Pending {
+        private final int[] indexes;
+        private final WebhookRequest[] requests;
+        private int size;
+
+        private Pending(int capacity) {
+            this.indexes = new int[capacity];
+            this.requests = new WebhookRequest[capacity];
+        }
+
+        private void add(int index, WebhookRequest request) {
+            indexes[size] = index;
+            requests[size] = request;
+            size++;
+        }
+
+        private void clear() {
+            Arrays.fill(requests, 0, size, null);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pollaminllc.crs;
+
+import com.pollaminllc.crs.model.AppointmentFields;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.util.Config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent validation decisions by normalized PO number, for delta evaluation of updates.
+ *
+ * Each decision keeps the PO it was made against, the appointment fields the business
+ * rules saw, and the result. Decisions are used for delta.max_age_seconds from the
+ * time the PO was read; re-running the rules against the remembered PO does not make
+ * it younger. At most delta.max_entries are kept, least recently used evicted first.
+ */
+final class DecisionMemory {
+
+    static final class Decision {
+        final PurchaseOrder po;
+        final AppointmentFields fields;
+        final ValidationResult result;
+        final long lookedUpAtNanos;
+
+        Decision(PurchaseOrder po, AppointmentFields fields, ValidationResult result, long lookedUpAtNanos) {
+            this.po = po;
+            this.fields = fields;
+            this.result = result;
+            this.lookedUpAtNanos = lookedUpAtNanos;
+        }
+    }
+
+    private final long maxAgeNanos;
+    private final int maxEntries;
+
+    // Access-ordered so iteration order is least recently used first
+    private final Map<String, Decision> decisions;
+
+    DecisionMemory(Config config) {
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getDeltaMaxAgeSeconds()));
+        this.maxEntries = Math.max(1, config.getDeltaMaxEntries());
+        this.decisions = new LinkedHashMap<String, Decision>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Decision> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The decision for the PO, or null if there is none younger than max age
+     */
+    Decision get(String key) {
+        synchronized (decisions) {
+            Decision decision = decisions.get(key);
+            if (decision == null) {
+                return null;
+            }
+            if (System.nanoTime() - decision.lookedUpAtNanos > maxAgeNanos) {
+                decisions.remove(key);
+                return null;
+            }
+            return decision;
+        }
+    }
+
+    void remember(String key, Decision decision) {
+        if (key == null || maxAgeNanos == 0) {
+            return;
+        }
+        synchronized (decisions) {
+            decisions.put(key, decision);
+        }
+    }
+
+    int size() {
+        synchronized (decisions) {
+            return decisions.size();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.pollaminllc.crs;
+
+import com.pollaminllc.crs.util.Config;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays the response to a webhook that was already answered, keyed by a SHA-256
+ * digest of the caller's Authorization header and the raw request body.
+ *
+ * OpenDock retries a webhook with the identical body after a timeout or network
+ * error. The first request with a digest owns the evaluation; duplicates that
+ * arrive while it is in flight share its response, and duplicates within
+ * idempotency.window_seconds after it get the stored status and JSON bytes
+ * without parsing past the body, a lookup or the rules.
+ *
+ * Only deterministic outcomes are kept (200, 400, 404, 409, not fail-open), so a
+ * retry after a 503 is evaluated again. At most idempotency.max_entries responses
+ * are kept; past that, expired entries are swept and new responses are not stored.
+ */
+public final class IdempotencyCache {
+
+    private static final int[] CACHEABLE_STATUSES = {200, 400, 404, 409};
+
+    private final long windowNanos;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public IdempotencyCache(Config config) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getIdempotencyWindowSeconds()));
+        this.maxEntries = Math.max(1, config.getIdempotencyMaxEntries());
+    }
+
+    /**
+     * A SHA-256 digest to feed the identity and body into.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A stored or in-flight response: HTTP status, JSON body and whether it was a fail-open approval.
+     */
+    public static final class Response {
+        private final int status;
+        private final byte[] body;
+        private final boolean failOpen;
+
+        public Response(int status, byte[] body, boolean failOpen) {
+            this.status = status;
+            this.body = body;
+            this.failOpen = failOpen;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public boolean isFailOpen() {
+            return failOpen;
+        }
+    }
+
+    /**
+     * Claim on a digest. The owner must end it with {@link #complete(Ticket, Response)} or
+     * {@link #abandon(Ticket)}; everyone else waits on {@link #response()}.
+     */
+    public static final class Ticket {
+        private final Entry entry;
+        private final boolean owner;
+        private final boolean replay;
+
+        private Ticket(Entry entry, boolean owner) {
+            this.entry = entry;
+            this.owner = owner;
+            this.replay = !owner && entry.response.isDone();
+        }
+
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * @return true if the response was already stored, false if the caller joined an in-flight evaluation
+         */
+        public boolean isReplay() {
+            return replay;
+        }
+
+        public CompletableFuture<Response> response() {
+            return entry.response;
+        }
+    }
+
+    /**
+     * Look up a digest, registering the caller as its owner if no live entry exists.
+     */
+    public Ticket begin(byte[] digest) {
+        Key key = new Key(digest);
+        long now = System.nanoTime();
+        while (true) {
+            Entry fresh = new Entry(key);
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                return new Ticket(fresh, true);
+            }
+            if (!existing.isExpired(now, windowNanos)) {
+                return new Ticket(existing, false);
+            }
+            if (entries.replace(key, existing, fresh)) {
+                return new Ticket(fresh, true);
+            }
+        }
+    }
+
+    /**
+     * Publish the owner's response to anyone waiting and keep it for the window if it is deterministic.
+     * Does nothing if the ticket was already completed.
+     */
+    public void complete(Ticket ticket, Response response) {
+        Entry entry = ticket.entry;
+        if (!ticket.owner || entry.response.isDone()) {
+            return;
+        }
+        entry.completedAtNanos = System.nanoTime();
+        boolean keep = isCacheable(response) && windowNanos > 0 && (entries.size() <= maxEntries || sweep());
+        if (!keep) {
+            entries.remove(entry.key, entry);
+        }
+        entry.response.complete(response);
+    }
+
+    /**
+     * End an evaluation that produced no response (the exchange failed). Waiters get the exception.
+     */
+    public void abandon(Ticket ticket) {
+        Entry entry = ticket.entry;
+        if (!ticket.owner || entry.response.isDone()) {
+            return;
+        }
+        entries.remove(entry.key, entry);
+        entry.response.completeExceptionally(new IllegalStateException("Original request ended without a response"));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static boolean isCacheable(Response response) {
+        if (response.failOpen) {
+            return false;
+        }
+        for (int status : CACHEABLE_STATUSES) {
+            if (status == response.status) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop expired entries; one thread at a time.
+     *
+     * @return true if the cache is back under max_entries
+     */
+    private boolean sweep() {
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                long now = System.nanoTime();
+                for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                    if (it.next().isExpired(now, windowNanos)) {
+                        it.remove();
+                    }
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+        return entries.size() <= maxEntries;
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final CompletableFuture<Response> response = new CompletableFuture<>();
+        // Set before the response is completed; in-flight entries never expire
+        private volatile long completedAtNanos;
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now, long windowNanos) {
+            return response.isDone() && now - completedAtNanos > windowNanos;
+        }
+    }
+
+    private static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
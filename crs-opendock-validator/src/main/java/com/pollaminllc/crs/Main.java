@@ -1,13 +1,31 @@
 package com.pollaminllc.crs;
 
 import com.sun.net.httpserver.HttpServer;
+import com.pollaminllc.crs.data.BloomFilterPurchaseOrderRepository;
+import com.pollaminllc.crs.data.CachingPurchaseOrderRepository;
+import com.pollaminllc.crs.data.CoalescingPurchaseOrderRepository;
+import com.pollaminllc.crs.data.Db2Repository;
+import com.pollaminllc.crs.data.MicroBatchingPurchaseOrderRepository;
 import com.pollaminllc.crs.data.PurchaseOrderRepository;
+import com.pollaminllc.crs.data.ResilientPurchaseOrderRepository;
+import com.pollaminllc.crs.data.SnapshotPurchaseOrderRepository;
+import com.pollaminllc.crs.data.SnapshotSource;
 import com.pollaminllc.crs.data.StubRepository;
+import com.pollaminllc.crs.jfr.FlightRecording;
+import com.pollaminllc.crs.metrics.MetricsHandler;
+import com.pollaminllc.crs.metrics.ValidatorMetrics;
+import com.pollaminllc.crs.resilience.CircuitBreaker;
 import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.JsonUtil;
+import com.pollaminllc.crs.util.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main entry point for CRS OneSource OpenDock PO Validator.
@@ -21,50 +39,42 @@ public class Main {
         try {
             // Load configuration
             Config config = Config.load();
+            Logger.configure(config);
 
-            // Initialize repository (stub for now, DB2 later)
-            PurchaseOrderRepository repository = new StubRepository();
+            // Optional continuous flight recording, written to jfr.dump_file on exit
+            FlightRecording.start(config);
 
-            // Create validator service
-            ValidatorService validatorService = new ValidatorService(repository);
+            // Initialize repository (stub or DB2, optionally behind a cache)
+            PurchaseOrderRepository repository = createRepository(config);
 
-            // Create HTTP handler
-            ValidatorHandler handler = new ValidatorHandler(validatorService, config);
-
-            // Start HTTP server
-            HttpServer server = HttpServer.create(
-                new InetSocketAddress(config.getPort()),
-                0  // backlog
-            );
-
-            server.createContext("/validate", handler);
-            server.createContext("/health", exchange -> {
-                String response = String.format(
-                    "{\"version\":\"%s\",\"status\":\"healthy\"}",
-                    VERSION
-                );
-                exchange.getResponseHeaders().set("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, response.length());
-                exchange.getResponseBody().write(response.getBytes());
-                exchange.getResponseBody().close();
-            });
-
-            server.setExecutor(Executors.newFixedThreadPool(10));
-            server.start();
+            // Create service and handler, then start the HTTP server
+            HttpServer server = startServer(config, repository);
+            ExecutorService executor = (ExecutorService) server.getExecutor();
 
             System.out.println("===========================================");
             System.out.println("CRS OneSource OpenDock Validator v" + VERSION);
             System.out.println("===========================================");
             System.out.println("Server started on port " + config.getPort());
+            System.out.println(config);
             System.out.println("Endpoints:");
             System.out.println("  POST /validate - PO validation webhook");
+            System.out.println("  POST /validate/batch - Batch validation (NDJSON results)");
             System.out.println("  GET  /health   - Health check");
+            System.out.println("  GET  /metrics  - Prometheus metrics");
             System.out.println("===========================================");
 
             // Add shutdown hook for graceful shutdown
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("Shutting down server...");
                 server.stop(5);
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                repository.close();
+                Logger.shutdown();
             }));
 
         } catch (IOException e) {
@@ -73,4 +83,125 @@ public class Main {
             System.exit(1);
         }
     }
+
+    /**
+     * Wire the validator service and handlers onto a new HttpServer and start it.
+     * A port of 0 in config binds a random free port; read it back from server.getAddress().
+     * Used by main() and by the in-process load-test harness.
+     */
+    public static HttpServer startServer(Config config, PurchaseOrderRepository repository) throws IOException {
+        // Metrics shared by the service and handler, exposed on /metrics
+        ValidatorMetrics metrics = new ValidatorMetrics();
+
+        // Create validator service
+        ValidatorService validatorService = new ValidatorService(repository, metrics, config);
+
+        // Create HTTP handler; lookups run on the I/O lane (null: on the HTTP threads)
+        ExecutorService ioExecutor = ServerExecutors.createIoLane(config);
+        ValidatorHandler handler = new ValidatorHandler(validatorService, config, metrics, ioExecutor);
+
+        // Start HTTP server
+        HttpServer server = HttpServer.create(
+            new InetSocketAddress(config.getPort()),
+            config.getServerBacklog()  // 0 = system default
+        );
+
+        server.createContext("/validate", handler);
+        server.createContext("/validate/batch",
+            new BatchValidatorHandler(validatorService, config, metrics, ioExecutor));
+        server.createContext("/health", exchange -> {
+            Map<String, Object> health = new LinkedHashMap<>();
+            Map<String, Number> repositoryMetrics = repository.getMetrics();
+            Number breakerState = repositoryMetrics.get("breaker_state");
+            boolean open = breakerState != null && breakerState.intValue() == CircuitBreaker.State.OPEN.ordinal();
+            health.put("version", VERSION);
+            health.put("status", open ? "degraded" : "healthy");
+            if (breakerState != null) {
+                health.put("circuitBreaker", CircuitBreaker.State.values()[breakerState.intValue()].name());
+            }
+            health.put("repository", repositoryMetrics);
+            Map<String, Object> logging = new LinkedHashMap<>();
+            logging.put("pending", Logger.getPendingCount());
+            logging.put("dropped", Logger.getDroppedCount());
+            health.put("logging", logging);
+            byte[] response = JsonUtil.toJsonCompact(health).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.getResponseBody().close();
+        });
+
+        ExecutorService executor = ServerExecutors.create(config);
+        server.createContext("/metrics", new MetricsHandler(metrics, repository, executor, ioExecutor));
+
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Build the repository chain from config.
+     * repository.type selects the backing store ("stub" or "db2");
+     * batch.enabled groups concurrent lookups into multi-PO queries;
+     * breaker.enabled guards the database with a circuit breaker and bulkhead;
+     * coalesce.enabled shares concurrent lookups for the same PO;
+     * snapshot.enabled answers open POs from an in-memory snapshot;
+     * cache.enabled puts a read-through cache in front of that;
+     * bloom.enabled rejects unknown PO numbers before anything else.
+     */
+    public static PurchaseOrderRepository createRepository(Config config) {
+        return decorateRepository(config, createBaseRepository(config));
+    }
+
+    private static PurchaseOrderRepository createBaseRepository(Config config) {
+        if ("db2".equalsIgnoreCase(config.getRepositoryType())) {
+            return new Db2Repository(config);
+        }
+        return new StubRepository();
+    }
+
+    /**
+     * Wrap a backing repository in the decorators enabled in config.
+     */
+    public static PurchaseOrderRepository decorateRepository(Config config, PurchaseOrderRepository repository) {
+        PurchaseOrderRepository base = repository;
+
+        if (config.isBatchEnabled()) {
+            repository = new MicroBatchingPurchaseOrderRepository(repository, config);
+        }
+
+        // Inside coalescing and caching so that only real database calls take bulkhead slots
+        if (config.isBreakerEnabled()) {
+            repository = new ResilientPurchaseOrderRepository(repository, config);
+        }
+
+        if (config.isCoalesceEnabled()) {
+            repository = new CoalescingPurchaseOrderRepository(repository);
+        }
+
+        // Snapshot hits skip every database-facing layer; it loads straight from the backing store
+        if (config.isSnapshotEnabled()) {
+            if (base instanceof SnapshotSource) {
+                repository = new SnapshotPurchaseOrderRepository(repository, (SnapshotSource) base, config);
+            } else {
+                System.err.println("snapshot.enabled ignored: " + base.getClass().getSimpleName()
+                    + " cannot be bulk-loaded");
+            }
+        }
+
+        if (config.isCacheEnabled()) {
+            repository = new CachingPurchaseOrderRepository(repository, config);
+        }
+
+        // Outermost: a mistyped PO should not even take a cache slot
+        if (config.isBloomEnabled()) {
+            if (base instanceof SnapshotSource) {
+                repository = new BloomFilterPurchaseOrderRepository(repository, (SnapshotSource) base, config);
+            } else {
+                System.err.println("bloom.enabled ignored: " + base.getClass().getSimpleName()
+                    + " cannot list its PO numbers");
+            }
+        }
+        return repository;
+    }
 }
@@ -0,0 +1,141 @@
+package com.pollaminllc.crs;
+
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the executor that runs HTTP exchanges, based on server.executor:
+ *
+ * - "fixed":   server.threads worker threads with an unbounded queue (previous behavior)
+ * - "bounded": server.threads worker threads with a queue of server.queue_capacity;
+ *              when full, server.rejection_policy decides what happens:
+ *              "abort" drops the connection immediately, "caller_runs" runs the exchange
+ *              on the accepting thread so new connections wait in the TCP backlog
+ * - "virtual": one virtual thread per request (JDK 21+); falls back to "fixed"
+ *              on older runtimes
+ *
+ * That executor is the fast lane: it reads, authenticates and prechecks every request.
+ * Requests that need a PO lookup continue on the I/O lane from {@link #createIoLane(Config)},
+ * so slow database calls never hold the threads that answer everything else.
+ */
+public final class ServerExecutors {
+
+    private static final Logger LOG = Logger.get("ServerExecutors");
+
+    private ServerExecutors() {
+    }
+
+    public static ExecutorService create(Config config) {
+        String mode = config.getServerExecutor().toLowerCase(Locale.ROOT);
+        int threads = Math.max(1, config.getServerThreads());
+
+        switch (mode) {
+            case "virtual":
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                LOG.warn("virtual_threads_unavailable", "fallback", "fixed");
+                return fixed(threads);
+
+            case "bounded":
+                return new ThreadPoolExecutor(
+                    threads, threads,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, config.getServerQueueCapacity())),
+                    namedThreads("http-worker"),
+                    rejectionPolicy(config.getServerRejectionPolicy())
+                );
+
+            case "fixed":
+                return fixed(threads);
+
+            default:
+                LOG.warn("unknown_executor", "executor", mode, "fallback", "fixed");
+                return fixed(threads);
+        }
+    }
+
+    /**
+     * The I/O lane: server.io_threads daemon threads with a queue of server.io_queue_capacity.
+     * A full queue throws RejectedExecutionException, which the handler answers with a 503.
+     * With server.executor=virtual the lane uses virtual threads, which do not need a pool.
+     *
+     * @return The executor, or null when server.io_threads is 0 (lookups run on the fast lane)
+     */
+    public static ExecutorService createIoLane(Config config) {
+        int threads = config.getServerIoThreads();
+        if (threads <= 0) {
+            return null;
+        }
+        if ("virtual".equalsIgnoreCase(config.getServerExecutor())) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+        }
+        ThreadFactory named = namedThreads("io-worker");
+        return new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, config.getServerIoQueueCapacity())),
+            r -> {
+                // Open exchanges are drained by server.stop(); the lane must not block JVM exit
+                Thread t = named.newThread(r);
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    private static ExecutorService fixed(int threads) {
+        return new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            namedThreads("http-worker")
+        );
+    }
+
+    private static RejectedExecutionHandler rejectionPolicy(String policy) {
+        if ("caller_runs".equalsIgnoreCase(policy)) {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+        // The HTTP server closes the connection when the executor rejects an exchange
+        return new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflection, since the build targets Java 11.
+     * Returns null when the method is missing or virtual threads are not enabled.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // Preview builds (JDK 19/20) throw UnsupportedOperationException without --enable-preview
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> new Thread(r, prefix + "-" + count.incrementAndGet());
+    }
+}
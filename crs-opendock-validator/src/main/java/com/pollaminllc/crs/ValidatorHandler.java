@@ -1,82 +1,292 @@
 package com.pollaminllc.crs;
 
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import com.pollaminllc.crs.jfr.ValidationRequestEvent;
+import com.pollaminllc.crs.metrics.ValidatorMetrics;
+import com.pollaminllc.crs.metrics.ValidatorMetrics.Lane;
+import com.pollaminllc.crs.metrics.ValidatorMetrics.Stage;
 import com.pollaminllc.crs.model.ValidationResult;
 import com.pollaminllc.crs.model.WebhookRequest;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.BoundedInputStream;
+import com.pollaminllc.crs.util.BoundedInputStream.PayloadTooLargeException;
 import com.pollaminllc.crs.util.Config;
 import com.pollaminllc.crs.util.JsonUtil;
+import com.pollaminllc.crs.util.Logger;
+import com.pollaminllc.crs.util.WebhookJsonCodec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * HTTP handler for OpenDock validation webhook requests.
  * Handles authentication, request parsing, and response formatting.
+ *
+ * Runs on the HTTP executor (the fast lane). Requests that ValidatorService.precheck
+ * can decide without I/O (bad requests, cancellations, malformed PO numbers) are
+ * answered there. Requests that need a PO lookup are handed to the I/O lane executor,
+ * which finishes and closes the exchange, so database latency never ties up the
+ * threads reading new requests. A full I/O lane queue is answered with a 503.
+ *
+ * With idempotency.enabled, the body is digested while it is parsed and retried
+ * webhooks are answered from the IdempotencyCache.
  */
 public class ValidatorHandler implements HttpHandler {
 
+    private static final Logger LOG = Logger.get("ValidatorHandler");
+
+    private static final String FAIL_OPEN_HEADER = "X-CRS-Fail-Open";
+
     private final ValidatorService validatorService;
     private final Config config;
-    private static final DateTimeFormatter LOG_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final ValidatorMetrics metrics;
+    private final boolean useGson;
+    // Null: lookups run on the HTTP thread
+    private final Executor ioExecutor;
+    // Null unless idempotency.enabled
+    private final IdempotencyCache idempotency;
 
     public ValidatorHandler(ValidatorService validatorService, Config config) {
+        this(validatorService, config, new ValidatorMetrics());
+    }
+
+    public ValidatorHandler(ValidatorService validatorService, Config config, ValidatorMetrics metrics) {
+        this(validatorService, config, metrics, null);
+    }
+
+    public ValidatorHandler(ValidatorService validatorService, Config config, ValidatorMetrics metrics,
+                            Executor ioExecutor) {
         this.validatorService = validatorService;
         this.config = config;
+        this.metrics = metrics;
+        this.useGson = "gson".equalsIgnoreCase(config.getJsonCodec());
+        this.ioExecutor = ioExecutor;
+        this.idempotency = config.isIdempotencyEnabled() ? new IdempotencyCache(config) : null;
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        ValidationRequestEvent event = new ValidationRequestEvent();
+        event.begin();
+        boolean handedOff = false;
+        try {
+            // The budget starts when the handler picks up the exchange
+            handedOff = handleRequest(exchange, Deadline.startingAt(start, config.getDeadlineBudgetMs()), event, start);
+        } finally {
+            if (!handedOff) {
+                complete(exchange, start, event);
+            }
+        }
+    }
+
+    /**
+     * Record a finished request. Called by whichever lane sent the response.
+     */
+    private void complete(HttpExchange exchange, long start, ValidationRequestEvent event) {
+        // getResponseCode() is -1 if no response was sent, which is counted as "other"
+        metrics.recordRequest(exchange.getResponseCode(), System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = exchange.getRequestMethod();
+            event.status = exchange.getResponseCode();
+            event.commit();
+        }
+    }
+
+    /**
+     * @return true if the request was handed to the I/O lane, which then owns the exchange
+     */
+    private boolean handleRequest(HttpExchange exchange, Deadline deadline, ValidationRequestEvent event, long start)
+            throws IOException {
         String method = exchange.getRequestMethod();
-        String timestamp = LocalDateTime.now().format(LOG_FORMAT);
+        IdempotencyCache.Ticket ticket = null;
+        boolean handedOff = false;
 
-        log("Request: %s /validate from %s", method, exchange.getRemoteAddress());
+        LOG.debug("request", "method", method, "path", "/validate", "remote", exchange.getRemoteAddress());
 
         try {
             // Handle GET for health/status check
             if ("GET".equalsIgnoreCase(method)) {
                 handleGet(exchange);
-                return;
+                return false;
             }
 
             // Only POST is allowed for validation
             if (!"POST".equalsIgnoreCase(method)) {
                 sendError(exchange, 405, "Method not allowed. Use POST.");
-                return;
+                return false;
             }
 
             // Check authorization
-            if (!isAuthorized(exchange)) {
+            long stageStart = System.nanoTime();
+            boolean authorized = isAuthorized(exchange, config);
+            metrics.recordStage(Stage.AUTH, System.nanoTime() - stageStart);
+            if (!authorized) {
                 sendError(exchange, 401, "Unauthorized. Invalid or missing Bearer token.");
-                return;
+                return false;
             }
 
-            // Parse request body
-            String requestBody = readRequestBody(exchange);
-            log("Request body: %s", truncate(requestBody, 500));
+            // Reject bodies that declare a size over the limit before reading anything
+            long maxBodyBytes = config.getMaxBodyBytes();
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null) {
+                long declared;
+                try {
+                    declared = Long.parseLong(contentLength.trim());
+                } catch (NumberFormatException e) {
+                    sendError(exchange, 400, "Bad Request: Invalid Content-Length header");
+                    return false;
+                }
+                if (declared > maxBodyBytes) {
+                    sendError(exchange, 413, "Payload Too Large: request body exceeds " + maxBodyBytes + " bytes");
+                    return false;
+                }
+            }
 
+            // Parse request body straight from the stream, digesting it for idempotency
+            MessageDigest digest = null;
+            if (idempotency != null) {
+                digest = IdempotencyCache.newDigest();
+                String identity = exchange.getRequestHeaders().getFirst("Authorization");
+                digest.update((identity == null ? "" : identity).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
             WebhookRequest request;
+            stageStart = System.nanoTime();
             try {
-                request = JsonUtil.fromJson(requestBody, WebhookRequest.class);
-            } catch (Exception e) {
-                sendError(exchange, 400, "Bad Request: Invalid JSON - " + e.getMessage());
-                return;
+                request = readRequest(exchange, maxBodyBytes, digest);
+            } catch (JsonParseException e) {
+                if (findCause(e, PayloadTooLargeException.class) != null) {
+                    sendError(exchange, 413, "Payload Too Large: request body exceeds " + maxBodyBytes + " bytes");
+                } else {
+                    sendError(exchange, 400, "Bad Request: Invalid JSON - " + e.getMessage());
+                }
+                return false;
+            } finally {
+                metrics.recordStage(Stage.PARSE, System.nanoTime() - stageStart);
+            }
+            if (request != null) {
+                event.action = request.getAction();
+                event.refNumber = request.getRefNumber();
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("request_body", "request", request);
+            }
+
+            // A retried webhook gets the stored response, or shares the first one still in flight
+            if (digest != null) {
+                ticket = idempotency.begin(digest.digest());
+                if (!ticket.isOwner()) {
+                    replay(exchange, ticket, event, start);
+                    return true;
+                }
             }
 
-            // Validate the request
-            ValidationResult result = validatorService.validate(request);
+            // Validate what needs no I/O here; only lookups go to the I/O lane
+            ValidationResult result = validatorService.precheck(request);
+            if (result == null) {
+                if (ioExecutor != null) {
+                    handedOff = dispatchLookup(exchange, request, deadline, event, start, ticket);
+                    return handedOff;
+                }
+                result = validatorService.validatePrechecked(request, deadline);
+            }
+            metrics.recordLane(Lane.FAST);
 
             // Send response
-            sendResponse(exchange, result);
+            sendResponse(exchange, result, ticket);
 
         } catch (Exception e) {
-            log("Error processing request: %s", e.getMessage());
-            e.printStackTrace();
-            sendError(exchange, 500, "Internal server error: " + e.getMessage());
+            LOG.error("request_failed", e, "error", e.getMessage());
+            sendError(exchange, 500, "Internal server error: " + e.getMessage(), ticket);
+        } finally {
+            if (ticket != null && !handedOff) {
+                // No-op once a response was sent; otherwise releases duplicates waiting on this request
+                idempotency.abandon(ticket);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answer a duplicate with the owner's response, once it is available. Runs on this
+     * thread for a stored response, otherwise on the thread that completes the original.
+     */
+    private void replay(HttpExchange exchange, IdempotencyCache.Ticket ticket, ValidationRequestEvent event,
+                        long start) {
+        metrics.recordReplay(ticket.isReplay());
+        ticket.response().whenComplete((response, error) -> {
+            try {
+                if (response == null) {
+                    sendError(exchange, 503, "Service temporarily unavailable: original request failed, retry");
+                    return;
+                }
+                LOG.info("response", "status", response.getStatus(), "replay", true);
+                if (response.isFailOpen()) {
+                    exchange.getResponseHeaders().set(FAIL_OPEN_HEADER, "true");
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(response.getStatus(), response.getBody().length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(response.getBody());
+                }
+            } catch (IOException e) {
+                LOG.debug("replay_failed", "error", e.getMessage());
+            } finally {
+                exchange.close();
+                complete(exchange, start, event);
+            }
+        });
+    }
+
+    /**
+     * Queue the lookup on the I/O lane. The task sends the response and records the request.
+     *
+     * @return false if the lane was full and a 503 was sent here instead
+     */
+    private boolean dispatchLookup(HttpExchange exchange, WebhookRequest request, Deadline deadline,
+                                   ValidationRequestEvent event, long start, IdempotencyCache.Ticket ticket)
+            throws IOException {
+        long queuedAt = System.nanoTime();
+        try {
+            ioExecutor.execute(() -> {
+                metrics.recordIoQueueWait(System.nanoTime() - queuedAt);
+                metrics.recordLane(Lane.IO);
+                try {
+                    sendResponse(exchange, validatorService.validatePrechecked(request, deadline), ticket);
+                } catch (Exception e) {
+                    LOG.error("request_failed", e, "error", e.getMessage());
+                    try {
+                        sendError(exchange, 500, "Internal server error: " + e.getMessage(), ticket);
+                    } catch (IOException sendFailed) {
+                        // Client is gone; closing the exchange below is all that is left
+                    }
+                } finally {
+                    if (ticket != null) {
+                        idempotency.abandon(ticket);
+                    }
+                    exchange.close();
+                    complete(exchange, start, event);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            metrics.recordIoLaneRejected();
+            LOG.warn("io_lane_full", "refNumber", request.getRefNumber());
+            sendError(exchange, 503, "Service temporarily unavailable: too many lookups in progress", ticket);
+            return false;
         }
     }
 
@@ -93,86 +303,107 @@ public class ValidatorHandler implements HttpHandler {
     }
 
     /**
-     * Check if request has valid Bearer token authorization.
+     * Check if request has valid Bearer token authorization. Shared with /validate/batch.
      */
-    private boolean isAuthorized(HttpExchange exchange) {
+    static boolean isAuthorized(HttpExchange exchange, Config config) {
         // If no token configured, skip auth (for testing)
         if (!config.hasSecretToken()) {
-            log("Warning: No secret token configured, skipping auth check");
+            LOG.debug("auth_skipped", "reason", "no secret token configured");
             return true;
         }
 
         String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
         if (authHeader == null || authHeader.isEmpty()) {
-            log("Missing Authorization header");
+            LOG.warn("auth_failed", "reason", "missing Authorization header", "remote", exchange.getRemoteAddress());
             return false;
         }
 
         String[] parts = authHeader.split(" ");
         if (parts.length != 2 || !"Bearer".equalsIgnoreCase(parts[0])) {
-            log("Invalid Authorization header format");
+            LOG.warn("auth_failed", "reason", "invalid Authorization header format", "remote", exchange.getRemoteAddress());
             return false;
         }
 
         String token = parts[1];
         boolean valid = config.getSecretToken().equals(token);
         if (!valid) {
-            log("Invalid Bearer token");
+            LOG.warn("auth_failed", "reason", "invalid Bearer token", "remote", exchange.getRemoteAddress());
         }
         return valid;
     }
 
     /**
-     * Read the full request body as a string.
+     * Parse the webhook request from the request body stream.
+     * Reading stops with PayloadTooLargeException as soon as maxBodyBytes is exceeded,
+     * which covers chunked bodies that carry no Content-Length.
      */
-    private String readRequestBody(HttpExchange exchange) throws IOException {
-        try (InputStream is = exchange.getRequestBody()) {
-            byte[] bytes = is.readAllBytes();
-            return new String(bytes, StandardCharsets.UTF_8);
+    private WebhookRequest readRequest(HttpExchange exchange, long maxBodyBytes, MessageDigest digest)
+            throws IOException {
+        InputStream bounded = new BoundedInputStream(exchange.getRequestBody(), maxBodyBytes);
+        try (InputStream is = digest == null ? bounded : new DigestInputStream(bounded, digest);
+             Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            WebhookRequest request = useGson
+                ? JsonUtil.fromJson(reader, WebhookRequest.class)
+                : WebhookJsonCodec.readWebhookRequest(reader);
+            if (digest != null) {
+                // The parser may stop at the closing brace; the digest covers the whole body
+                is.transferTo(OutputStream.nullOutputStream());
+            }
+            return request;
+        }
+    }
+
+    static <T extends Throwable> T findCause(Throwable e, Class<T> type) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return type.cast(t);
+            }
         }
+        return null;
     }
 
     /**
      * Send a validation result response.
      */
-    private void sendResponse(HttpExchange exchange, ValidationResult result) throws IOException {
-        String json = result.toJson();
-        log("Response: %d - %s", result.getHttpStatus(), truncate(json, 200));
-
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        byte[] responseBytes = json.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(result.getHttpStatus(), responseBytes.length);
-
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseBytes);
+    private void sendResponse(HttpExchange exchange, ValidationResult result, IdempotencyCache.Ticket ticket)
+            throws IOException {
+        LOG.info("response", "status", result.getHttpStatus(), "message", truncate(result.getMessage(), 200));
+        if (result.isFailOpen()) {
+            // Lets OpenDock-side logs and audits tell unverified approvals apart
+            exchange.getResponseHeaders().set(FAIL_OPEN_HEADER, "true");
         }
+        send(exchange, result.getHttpStatus(), WebhookJsonCodec.encode(result), result.isFailOpen(), ticket);
     }
 
     /**
      * Send an error response.
      */
     private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
-        String json = String.format("{\"errorMessage\":\"%s\"}", escapeJson(message));
-        log("Error response: %d - %s", statusCode, message);
-
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        byte[] responseBytes = json.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+        sendError(exchange, statusCode, message, null);
+    }
 
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseBytes);
-        }
+    private void sendError(HttpExchange exchange, int statusCode, String message, IdempotencyCache.Ticket ticket)
+            throws IOException {
+        LOG.info("response", "status", statusCode, "message", message);
+        send(exchange, statusCode, WebhookJsonCodec.encodeError(message), false, ticket);
     }
 
     /**
-     * Escape special characters for JSON string.
+     * Write the response; with a ticket, first hand a copy to duplicates of this request.
      */
-    private String escapeJson(String s) {
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    private void send(HttpExchange exchange, int statusCode, WebhookJsonCodec.ByteBuffer body, boolean failOpen,
+                      IdempotencyCache.Ticket ticket) throws IOException {
+        if (ticket != null) {
+            // The codec buffer is reused by this thread, so the cache keeps a copy
+            idempotency.complete(ticket, new IdempotencyCache.Response(
+                statusCode, Arrays.copyOf(body.array(), body.length()), failOpen));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length());
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            body.writeTo(os);
+        }
     }
 
     /**
@@ -183,12 +414,4 @@ public class ValidatorHandler implements HttpHandler {
         if (s.length() <= maxLen) return s;
         return s.substring(0, maxLen) + "...";
     }
-
-    /**
-     * Log a message with timestamp.
-     */
-    private void log(String format, Object... args) {
-        String timestamp = LocalDateTime.now().format(LOG_FORMAT);
-        System.out.printf("[%s] %s%n", timestamp, String.format(format, args));
-    }
 }
@@ -1,11 +1,33 @@
 package com.pollaminllc.crs;
 
+import com.pollaminllc.crs.data.PoNumbers;
 import com.pollaminllc.crs.data.PurchaseOrderRepository;
+import com.pollaminllc.crs.jfr.PoLookupEvent;
+import com.pollaminllc.crs.jfr.ValidationEvent;
+import com.pollaminllc.crs.metrics.ValidatorMetrics;
+import com.pollaminllc.crs.metrics.ValidatorMetrics.Delta;
+import com.pollaminllc.crs.metrics.ValidatorMetrics.Stage;
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.AppointmentDelta.Field;
+import com.pollaminllc.crs.model.AppointmentFields;
 import com.pollaminllc.crs.model.PurchaseOrder;
 import com.pollaminllc.crs.model.ValidationResult;
 import com.pollaminllc.crs.model.WebhookRequest;
+import com.pollaminllc.crs.resilience.CallNotPermittedException;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.resilience.DeadlineExceededException;
+import com.pollaminllc.crs.rules.RuleEngine;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -14,14 +36,44 @@ import java.util.regex.Pattern;
  */
 public class ValidatorService {
 
+    private static final Logger LOG = Logger.get("ValidatorService");
+
     private final PurchaseOrderRepository repository;
+    private final ValidatorMetrics metrics;
+    private final boolean failOpenOnDeadline;
+    private final RuleEngine rules;
+    private final boolean multiRef;
+    private final int multiRefMax;
+    // Null unless delta.enabled
+    private final DecisionMemory decisions;
 
     // PO number format: alphanumeric, 1-50 characters
     // Adjust this pattern based on CRS's actual PO number format
-    private static final Pattern PO_NUMBER_PATTERN = Pattern.compile("^[A-Za-z0-9\\-]{1,50}$");
+    // Package-private so the JMH benchmarks can measure it directly
+    static final Pattern PO_NUMBER_PATTERN = Pattern.compile("^[A-Za-z0-9\\-]{1,50}$");
+
+    // Separators between POs in a multi-PO refNumber
+    private static final Pattern REF_SEPARATOR = Pattern.compile("[,\\s]+");
 
     public ValidatorService(PurchaseOrderRepository repository) {
+        this(repository, new ValidatorMetrics());
+    }
+
+    public ValidatorService(PurchaseOrderRepository repository, ValidatorMetrics metrics) {
+        this(repository, metrics, Config.fromProperties(new Properties()));
+    }
+
+    public ValidatorService(PurchaseOrderRepository repository, ValidatorMetrics metrics, Config config) {
         this.repository = repository;
+        this.metrics = metrics;
+        this.failOpenOnDeadline = config.isDeadlineFailOpen();
+        this.rules = RuleEngine.compile(config, metrics);
+        this.multiRef = config.isMultiRefEnabled();
+        this.multiRefMax = Math.max(1, config.getMultiRefMaxRefs());
+        if (!rules.getRuleNames().isEmpty()) {
+            LOG.info("rules_compiled", "rules", rules.getRuleNames());
+        }
+        this.decisions = config.isDeltaEnabled() ? new DecisionMemory(config) : null;
     }
 
     /**
@@ -31,7 +83,144 @@ public class ValidatorService {
      * @return Validation result with success/error message
      */
     public ValidationResult validate(WebhookRequest request) {
+        return validate(request, Deadline.none());
+    }
+
+    /**
+     * Validate an OpenDock webhook request within a time budget.
+     * If the PO lookup cannot finish before the deadline, the outcome follows
+     * deadline.exhausted_policy: a 503 (fail_closed) or a flagged 200 (fail_open).
+     *
+     * @param request  The webhook request from OpenDock
+     * @param deadline When the response is due; passed down to the repository
+     * @return Validation result with success/error message
+     */
+    public ValidationResult validate(WebhookRequest request, Deadline deadline) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        ValidationResult result = precheck(request, event);
+        if (result == null) {
+            result = lookupAndApplyRules(request, deadline, event);
+        }
+        commit(event, request, result);
+        return result;
+    }
+
+    /**
+     * Steps 1-4, which need no I/O: request shape, the cancellation bypass, the
+     * PO number format and, with delta.enabled, updates answered from a prior decision.
+     * Cheap enough to run on the HTTP thread (the fast lane).
+     *
+     * @return The final result, or null if the request needs a PO lookup
+     *         ({@link #validatePrechecked(WebhookRequest, Deadline)})
+     */
+    public ValidationResult precheck(WebhookRequest request) {
+        return precheck(request, new ValidationEvent());
+    }
+
+    /**
+     * Steps 5-7 for a request {@link #precheck(WebhookRequest)} passed: PO lookup and business rules.
+     * Runs on the I/O lane.
+     */
+    public ValidationResult validatePrechecked(WebhookRequest request, Deadline deadline) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        ValidationResult result = lookupAndApplyRules(request, deadline, event);
+        commit(event, request, result);
+        return result;
+    }
+
+    /**
+     * Batch support: the normalized PO numbers a request that passed
+     * {@link #precheck(WebhookRequest)} needs looked up.
+     */
+    public List<String> lookupKeys(WebhookRequest request) {
+        String refNumber = request.getRefNumber();
+        if (isMultiRef(refNumber)) {
+            return splitRefNumbers(refNumber);
+        }
+        return Collections.singletonList(PoNumbers.normalize(refNumber));
+    }
+
+    /**
+     * Batch support: step 5 for many prechecked requests at once, as one findByPoNumbers
+     * call for their {@link #lookupKeys(WebhookRequest)}. A failure is counted and logged
+     * here once; answer each request with {@link #lookupFailed(WebhookRequest, Exception, Deadline)}.
+     *
+     * @return Purchase orders by normalized PO number
+     */
+    public Map<String, List<PurchaseOrder>> lookupAll(Collection<String> keys, Deadline deadline) throws Exception {
+        String label = "batch of " + keys.size();
+        PoLookupEvent lookupEvent = new PoLookupEvent();
+        long stageStart = System.nanoTime();
+        lookupEvent.begin();
+        try {
+            Map<String, List<PurchaseOrder>> found = repository.findByPoNumbers(keys, deadline);
+            lookupEvent.records = countRecords(found);
+            return found;
+        } catch (Exception e) {
+            lookupEvent.error = e.getMessage();
+            recordLookupFailure(e, label);
+            throw e;
+        } finally {
+            finishLookup(lookupEvent, label, stageStart);
+        }
+    }
+
+    /**
+     * Batch support: steps 6-7 for a prechecked request whose POs are in the results of
+     * {@link #lookupAll(Collection, Deadline)}.
+     *
+     * @param lookedUpAtNanos When the lookup started, for delta evaluation
+     */
+    public ValidationResult validateLookedUp(WebhookRequest request, Map<String, List<PurchaseOrder>> found,
+                                             long lookedUpAtNanos) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        String refNumber = request.getRefNumber();
+        ValidationResult result;
+        if (isMultiRef(refNumber)) {
+            List<String> refs = splitRefNumbers(refNumber);
+            metrics.recordMultiRef(refs.size());
+            result = checkFoundMulti(request, refs, found, event);
+        } else {
+            result = checkFound(request, found.get(PoNumbers.normalize(refNumber)), lookedUpAtNanos, event);
+        }
+        commit(event, request, result);
+        return result;
+    }
+
+    /**
+     * Batch support: the outcome for a prechecked request whose
+     * {@link #lookupAll(Collection, Deadline)} failed.
+     */
+    public ValidationResult lookupFailed(WebhookRequest request, Exception e, Deadline deadline) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        event.step = 5;
+        ValidationResult result = lookupFailureResult(e, request.getRefNumber(), deadline);
+        commit(event, request, result);
+        return result;
+    }
+
+    private static void commit(ValidationEvent event, WebhookRequest request, ValidationResult result) {
+        event.end();
+        if (event.shouldCommit()) {
+            if (request != null) {
+                event.action = request.getAction();
+                event.refNumber = request.getRefNumber();
+            }
+            event.status = result.getHttpStatus();
+            event.commit();
+        }
+    }
+
+    /**
+     * Steps 1-4; event.step records how far a request got. Null means "look it up".
+     */
+    private ValidationResult precheck(WebhookRequest request, ValidationEvent event) {
         // Step 1: Basic request validation
+        event.step = 1;
         if (request == null) {
             return ValidationResult.badRequest("Missing request body");
         }
@@ -45,11 +234,13 @@ public class ValidatorService {
         }
 
         // Step 2: BYPASS - Always allow cancellations
+        event.step = 2;
         if (request.isCancellation()) {
             return ValidationResult.success("Appointments are always allowed to be cancelled.");
         }
 
         // Step 3: Extract and validate reference number
+        event.step = 3;
         String refNumber = request.getRefNumber();
         if (refNumber == null || refNumber.isEmpty()) {
             return ValidationResult.badRequest(
@@ -58,7 +249,14 @@ public class ValidatorService {
         }
 
         // Step 4: Validate reference number format
-        if (!isValidRefFormat(refNumber)) {
+        event.step = 4;
+        if (isMultiRef(refNumber)) {
+            return precheckMultiRef(refNumber);
+        }
+        long stageStart = System.nanoTime();
+        boolean validFormat = isValidRefFormat(refNumber);
+        metrics.recordStage(Stage.FORMAT_CHECK, System.nanoTime() - stageStart);
+        if (!validFormat) {
             return ValidationResult.badRequest(
                 String.format(
                     "Invalid PO Number format: '%s'. Must be alphanumeric, 1-50 characters.",
@@ -67,17 +265,139 @@ public class ValidatorService {
             );
         }
 
+        // Step 4b: An update that keeps its PO reuses the prior decision
+        if (decisions != null) {
+            return evaluateDelta(request);
+        }
+        return null;
+    }
+
+    /**
+     * Step 4 for a refNumber carrying several POs ("PO1, PO2 PO3"): every PO must have a
+     * valid format and there may be at most multi_ref.max_refs of them.
+     * Delta evaluation does not apply; the POs are always looked up.
+     */
+    private ValidationResult precheckMultiRef(String refNumber) {
+        long stageStart = System.nanoTime();
+        List<String> invalid = new ArrayList<>();
+        for (String ref : REF_SEPARATOR.split(refNumber.trim())) {
+            if (!ref.isEmpty() && !isValidRefFormat(ref)) {
+                invalid.add("'" + ref + "'");
+            }
+        }
+        metrics.recordStage(Stage.FORMAT_CHECK, System.nanoTime() - stageStart);
+        if (!invalid.isEmpty()) {
+            return ValidationResult.badRequest(
+                String.format(
+                    "Invalid PO Number format: %s. Each PO Number must be alphanumeric, 1-50 characters.",
+                    String.join(", ", invalid)
+                )
+            );
+        }
+        List<String> refs = splitRefNumbers(refNumber);
+        if (refs.size() > multiRefMax) {
+            return ValidationResult.badRequest(
+                String.format(
+                    "Too many PO Numbers in one appointment: %d. At most %d are allowed.",
+                    refs.size(),
+                    multiRefMax
+                )
+            );
+        }
+        return null;
+    }
+
+    /**
+     * True if multi_ref.enabled and the refNumber has a separator between POs.
+     */
+    private boolean isMultiRef(String refNumber) {
+        return multiRef && REF_SEPARATOR.matcher(refNumber.trim()).find();
+    }
+
+    /**
+     * The POs in a multi-PO refNumber, normalized, in order, without duplicates.
+     */
+    private static List<String> splitRefNumbers(String refNumber) {
+        Set<String> refs = new LinkedHashSet<>();
+        for (String ref : REF_SEPARATOR.split(refNumber.trim())) {
+            if (!ref.isEmpty()) {
+                refs.add(PoNumbers.normalize(ref));
+            }
+        }
+        return new ArrayList<>(refs);
+    }
+
+    /**
+     * Delta evaluation of an update: re-run only the checks the changed fields feed.
+     * - refNumber: the PO lookup (and everything after it), so a changed PO is looked up
+     * - fields a compiled rule reads (RuleEngine.getInputs(), e.g. start, warehouse):
+     *   the business rules, re-run here against the remembered PO
+     * - anything else: no check reads it, so the prior decision stands
+     *
+     * @return The result, or null if the request needs a PO lookup
+     */
+    private ValidationResult evaluateDelta(WebhookRequest request) {
+        AppointmentDelta delta = AppointmentDelta.of(request);
+        if (delta == null) {
+            return null;
+        }
+        String key = PoNumbers.normalize(request.getRefNumber());
+        DecisionMemory.Decision prior = delta.isChanged(Field.REF_NUMBER) ? null : decisions.get(key);
+        if (prior == null) {
+            metrics.recordDelta(Delta.LOOKUP);
+            return null;
+        }
+
+        // Compare with what the prior decision saw, which may predate existingAppointment
+        AppointmentFields fields = request.getAppointmentFields();
+        if (!AppointmentDelta.between(prior.fields, fields).isChangedAny(rules.getInputs())) {
+            metrics.recordDelta(Delta.REUSED);
+            LOG.debug("delta_reused", "refNumber", request.getRefNumber(), "changed", delta);
+            return prior.result;
+        }
+
+        ValidationResult result = applyRules(request, prior.po);
+        decisions.remember(key, new DecisionMemory.Decision(prior.po, fields, result, prior.lookedUpAtNanos));
+        metrics.recordDelta(Delta.RULES);
+        LOG.debug("delta_rules", "refNumber", request.getRefNumber(), "changed", delta);
+        return result;
+    }
+
+    /**
+     * Steps 5-7 of validation.
+     */
+    private ValidationResult lookupAndApplyRules(WebhookRequest request, Deadline deadline, ValidationEvent event) {
+        String refNumber = request.getRefNumber();
+        if (isMultiRef(refNumber)) {
+            return lookupAndApplyRulesMulti(request, splitRefNumbers(refNumber), deadline, event);
+        }
+
         // Step 5: Look up PO in database
+        event.step = 5;
         List<PurchaseOrder> purchaseOrders;
+        PoLookupEvent lookupEvent = new PoLookupEvent();
+        long stageStart = System.nanoTime();
+        lookupEvent.begin();
         try {
-            purchaseOrders = repository.findByPoNumber(refNumber);
+            purchaseOrders = repository.findByPoNumber(refNumber, deadline);
+            lookupEvent.records = purchaseOrders == null ? 0 : purchaseOrders.size();
         } catch (Exception e) {
-            return ValidationResult.serviceUnavailable(
-                "Database connection error: " + e.getMessage()
-            );
+            return lookupFailed(e, refNumber, deadline, lookupEvent);
+        } finally {
+            finishLookup(lookupEvent, refNumber, stageStart);
         }
+        return checkFound(request, purchaseOrders, stageStart, event);
+    }
+
+    /**
+     * Steps 6-7 for a single-PO refNumber, given the lookup result.
+     */
+    private ValidationResult checkFound(WebhookRequest request, List<PurchaseOrder> purchaseOrders,
+                                        long lookedUpAtNanos, ValidationEvent event) {
+        String refNumber = request.getRefNumber();
 
         // Step 6: Check results
+        event.step = 6;
         if (purchaseOrders == null || purchaseOrders.isEmpty()) {
             return ValidationResult.notFound(
                 String.format(
@@ -99,92 +419,201 @@ public class ValidatorService {
         }
 
         // Step 7: Apply business rules
+        event.step = 7;
         PurchaseOrder po = purchaseOrders.get(0);
-        ValidationResult businessRuleResult = applyBusinessRules(request, po);
-        if (!businessRuleResult.isSuccess()) {
-            return businessRuleResult;
+        ValidationResult result = applyRules(request, po);
+        if (decisions != null) {
+            // Aged from when the lookup started
+            decisions.remember(PoNumbers.normalize(refNumber), new DecisionMemory.Decision(
+                po, request.getAppointmentFields(), result, lookedUpAtNanos));
         }
-
-        // All validations passed
-        return ValidationResult.success(
-            String.format("Appointment with PO Number %s is valid", refNumber)
-        );
+        return result;
     }
 
     /**
-     * Validate PO number format.
-     * Adjust this pattern based on CRS's actual PO number format requirements.
+     * Steps 5-7 for a multi-PO refNumber: one batched lookup for all POs, so latency is
+     * that of one query rather than one per PO, then the checks per PO. The result
+     * names every PO that failed; its status is that of the first failure.
      */
-    private boolean isValidRefFormat(String refNumber) {
-        if (refNumber == null || refNumber.isEmpty()) {
-            return false;
+    private ValidationResult lookupAndApplyRulesMulti(WebhookRequest request, List<String> refs, Deadline deadline,
+                                                     ValidationEvent event) {
+        String refNumber = request.getRefNumber();
+        metrics.recordMultiRef(refs.size());
+
+        // Step 5: Look up all POs in one repository call
+        event.step = 5;
+        Map<String, List<PurchaseOrder>> found;
+        PoLookupEvent lookupEvent = new PoLookupEvent();
+        long stageStart = System.nanoTime();
+        lookupEvent.begin();
+        try {
+            found = repository.findByPoNumbers(refs, deadline);
+            lookupEvent.records = countRecords(found);
+        } catch (Exception e) {
+            return lookupFailed(e, refNumber, deadline, lookupEvent);
+        } finally {
+            finishLookup(lookupEvent, refNumber, stageStart);
         }
-        return PO_NUMBER_PATTERN.matcher(refNumber).matches();
+        return checkFoundMulti(request, refs, found, event);
     }
 
     /**
-     * Apply business rules to validate the appointment against the PO.
-     * TODO: Add more rules based on CRS requirements.
+     * Steps 6-7 for a multi-PO refNumber, given the lookup results keyed by normalized PO number.
      */
-    private ValidationResult applyBusinessRules(WebhookRequest request, PurchaseOrder po) {
-        // Rule 1: Check if PO is in valid status
-        // Uncomment when we know CRS's PO status rules
-        /*
-        if (!po.isOpen()) {
-            return ValidationResult.badRequest(
+    private ValidationResult checkFoundMulti(WebhookRequest request, List<String> refs,
+                                             Map<String, List<PurchaseOrder>> found, ValidationEvent event) {
+        // Steps 6-7 per PO
+        event.step = 6;
+        ValidationResult firstFailure = null;
+        List<String> failures = new ArrayList<>();
+        long rulesStart = System.nanoTime();
+        for (String ref : refs) {
+            List<PurchaseOrder> orders = found.get(ref);
+            ValidationResult failure;
+            if (orders == null || orders.isEmpty()) {
+                failure = ValidationResult.notFound("no records found");
+            } else if (orders.size() > 1) {
+                failure = ValidationResult.conflict("multiple records found");
+            } else {
+                event.step = 7;
+                failure = rules.evaluate(request, orders.get(0));
+            }
+            if (failure != null) {
+                if (firstFailure == null) {
+                    firstFailure = failure;
+                }
+                failures.add(ref + ": " + failure.getMessage());
+            }
+        }
+        metrics.recordStage(Stage.RULES, System.nanoTime() - rulesStart);
+
+        if (firstFailure == null) {
+            return ValidationResult.success(
                 String.format(
-                    "PO Number %s has status '%s' and is not available for scheduling. " +
-                    "Only open POs can be scheduled.",
-                    po.getPoNumber(),
-                    po.getStatus()
+                    refs.size() == 1 ? "Appointment with PO Number %s is valid" : "Appointment with PO Numbers %s is valid",
+                    String.join(", ", refs)
                 )
             );
         }
-        */
-
-        // Rule 2: Check if appointment date is on or after expected date
-        // Uncomment when we know CRS's date validation requirements
-        /*
-        if (request.getAppointmentFields() != null &&
-            request.getAppointmentFields().getStart() != null &&
-            po.getExpectedDate() != null) {
-
-            LocalDate apptDate = parseApptDate(request.getAppointmentFields().getStart());
-            if (apptDate != null && apptDate.isBefore(po.getExpectedDate())) {
-                return ValidationResult.badRequest(
-                    String.format(
-                        "Appointment must be scheduled on or after the expected delivery date of %s for PO Number: %s. " +
-                        "Select a later date and try again.",
-                        po.getExpectedDate(),
-                        po.getPoNumber()
-                    )
-                );
-            }
+        String message = String.format(
+            "%d of %d PO Numbers failed validation. %s",
+            failures.size(),
+            refs.size(),
+            String.join("; ", failures)
+        );
+        switch (firstFailure.getHttpStatus()) {
+            case 404:
+                return ValidationResult.notFound(message);
+            case 409:
+                return ValidationResult.conflict(message);
+            default:
+                return ValidationResult.badRequest(message);
         }
-        */
+    }
 
-        // All business rules passed
-        return ValidationResult.success("OK");
+    /**
+     * Outcome of a lookup that threw, for one PO or a multi-PO refNumber.
+     */
+    private ValidationResult lookupFailed(Exception e, String refNumber, Deadline deadline, PoLookupEvent lookupEvent) {
+        lookupEvent.error = e.getMessage();
+        recordLookupFailure(e, refNumber);
+        return lookupFailureResult(e, refNumber, deadline);
     }
 
     /**
-     * Parse appointment start datetime to LocalDate.
-     * Handles ISO 8601 format (e.g., "2024-03-15T10:00:00Z").
+     * Count and log a failed lookup once, however many requests it answers.
+     * Deadline misses are counted per request by deadlineExhausted.
      */
-    /*
-    private LocalDate parseApptDate(String startDateTime) {
-        if (startDateTime == null || startDateTime.isEmpty()) {
-            return null;
+    private void recordLookupFailure(Exception e, String refNumber) {
+        if (e instanceof DeadlineExceededException) {
+            return;
         }
-        try {
-            // Handle ISO 8601 format
-            if (startDateTime.contains("T")) {
-                return LocalDate.parse(startDateTime.substring(0, 10));
-            }
-            return LocalDate.parse(startDateTime);
-        } catch (Exception e) {
-            return null;
+        if (e instanceof CallNotPermittedException) {
+            // Circuit breaker open or bulkhead full: fail fast without touching the database
+            LOG.debug("lookup_rejected", "refNumber", refNumber, "reason", e.getMessage());
+            return;
+        }
+        metrics.recordRepositoryError();
+        LOG.warn("lookup_failed", "refNumber", refNumber, "error", e.getMessage());
+    }
+
+    private ValidationResult lookupFailureResult(Exception e, String refNumber, Deadline deadline) {
+        if (e instanceof DeadlineExceededException) {
+            return deadlineExhausted(refNumber, deadline);
+        }
+        if (e instanceof CallNotPermittedException) {
+            return ValidationResult.serviceUnavailable(
+                "Service temporarily unavailable: " + e.getMessage()
+            );
+        }
+        return ValidationResult.serviceUnavailable(
+            "Database connection error: " + e.getMessage()
+        );
+    }
+
+    private static int countRecords(Map<String, List<PurchaseOrder>> found) {
+        int records = 0;
+        for (List<PurchaseOrder> orders : found.values()) {
+            records += orders == null ? 0 : orders.size();
         }
+        return records;
+    }
+
+    private void finishLookup(PoLookupEvent lookupEvent, String refNumber, long stageStart) {
+        metrics.recordStage(Stage.LOOKUP, System.nanoTime() - stageStart);
+        lookupEvent.end();
+        if (lookupEvent.shouldCommit()) {
+            lookupEvent.repository = repository.getClass().getSimpleName();
+            lookupEvent.refNumber = refNumber;
+            lookupEvent.commit();
+        }
+    }
+
+    /**
+     * Step 7: business rules against a found PO, and the success message if they pass.
+     */
+    private ValidationResult applyRules(WebhookRequest request, PurchaseOrder po) {
+        long stageStart = System.nanoTime();
+        ValidationResult rejection = rules.evaluate(request, po);
+        metrics.recordStage(Stage.RULES, System.nanoTime() - stageStart);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        // All validations passed
+        return ValidationResult.success(
+            String.format("Appointment with PO Number %s is valid", request.getRefNumber())
+        );
+    }
+
+    /**
+     * Outcome when the PO lookup did not finish within the request deadline.
+     */
+    private ValidationResult deadlineExhausted(String refNumber, Deadline deadline) {
+        metrics.recordDeadlineExceeded(failOpenOnDeadline);
+        if (failOpenOnDeadline) {
+            LOG.warn("deadline_fail_open", "refNumber", refNumber, "budgetMs", deadline.getBudgetMillis());
+            return ValidationResult.failOpen(
+                String.format(
+                    "Appointment with PO Number %s accepted; PO verification timed out and will be reviewed",
+                    refNumber
+                )
+            );
+        }
+        LOG.warn("deadline_exceeded", "refNumber", refNumber, "budgetMs", deadline.getBudgetMillis());
+        return ValidationResult.serviceUnavailable(
+            "PO lookup did not complete in time. Please try again."
+        );
+    }
+
+    /**
+     * Validate PO number format.
+     * Adjust this pattern based on CRS's actual PO number format requirements.
+     */
+    private boolean isValidRefFormat(String refNumber) {
+        if (refNumber == null || refNumber.isEmpty()) {
+            return false;
+        }
+        return PO_NUMBER_PATTERN.matcher(refNumber).matches();
     }
-    */
 }
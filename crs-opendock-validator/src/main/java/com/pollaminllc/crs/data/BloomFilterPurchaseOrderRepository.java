@@ -0,0 +1,236 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.BloomFilter;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejects PO numbers that certainly do not exist before they reach another
+ * PurchaseOrderRepository, so mistyped POs get their 404 without a database query.
+ *
+ * - A BloomFilter is built from every PO number in the SnapshotSource (open or not),
+ *   sized for bloom.fpp, and rebuilt every bloom.rebuild_minutes.
+ * - Every bloom.refresh_interval_seconds the POs changed since the last watermark
+ *   (including new ones) are added, re-reading snapshot.change_overlap_ms before it.
+ *   A PO created since the last refresh can be rejected until the next one, the same
+ *   window a cached not-found result has.
+ * - Numbers the filter rules out return an empty list (ValidationResult.notFound);
+ *   anything else, and every lookup before the first build, goes to the delegate.
+ *
+ * Filtered numbers whose lookup still comes back empty are false positives;
+ * bloom_observed_fpp reports them as a share of all lookups for missing POs.
+ */
+public class BloomFilterPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private static final Logger LOG = Logger.get("BloomFilterRepository");
+
+    // Room for POs added by refreshes before the next rebuild
+    private static final double HEADROOM = 1.25;
+
+    private final PurchaseOrderRepository delegate;
+    private final SnapshotSource source;
+    private final double fpp;
+    private final int partitions;
+    private final long rebuildNanos;
+    private final long overlapMillis;
+
+    private final ScheduledExecutorService scheduler;
+    // Written by the refresh thread only
+    private volatile BloomFilter filter;
+    private volatile long builtAtNanos;
+    private long watermark;
+    private volatile long keyCount;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public BloomFilterPurchaseOrderRepository(PurchaseOrderRepository delegate, SnapshotSource source, Config config) {
+        this.delegate = delegate;
+        this.source = source;
+        this.fpp = config.getBloomFpp();
+        this.partitions = Math.max(1, config.getSnapshotPartitions());
+        this.rebuildNanos = TimeUnit.MINUTES.toNanos(Math.max(1, config.getBloomRebuildMinutes()));
+        this.overlapMillis = Math.max(0, config.getSnapshotChangeOverlapMs());
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "po-bloom");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getBloomRefreshIntervalSeconds()));
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        String key = PoNumbers.normalize(poNumber);
+        BloomFilter current = filter;
+        if (current != null && key != null && !current.mightContain(key)) {
+            rejected.increment();
+            LOG.debug("bloom_rejected", "poNumber", key);
+            return List.of();
+        }
+
+        List<PurchaseOrder> found = delegate.findByPoNumber(poNumber, deadline);
+        if (current != null) {
+            passed.increment();
+            if (found == null || found.isEmpty()) {
+                falsePositives.increment();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        BloomFilter current = filter;
+        // Key -> the first caller PO number with that key, which is what the delegate is asked for
+        Map<String, String> candidates = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            String key = PoNumbers.normalize(poNumber);
+            if (candidates.containsKey(key)) {
+                continue;
+            }
+            if (current == null || key == null || current.mightContain(key)) {
+                candidates.put(key, poNumber);
+            } else {
+                rejected.increment();
+            }
+        }
+
+        Map<String, List<PurchaseOrder>> fetched = candidates.isEmpty()
+            ? Map.of() : delegate.findByPoNumbers(candidates.values(), deadline);
+        Map<String, List<PurchaseOrder>> found = new HashMap<>();
+        for (Map.Entry<String, String> candidate : candidates.entrySet()) {
+            List<PurchaseOrder> orders = fetched.get(candidate.getValue());
+            found.put(candidate.getKey(), orders);
+            if (current != null) {
+                passed.increment();
+                if (orders == null || orders.isEmpty()) {
+                    falsePositives.increment();
+                }
+            }
+        }
+
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            List<PurchaseOrder> orders = found.get(PoNumbers.normalize(poNumber));
+            results.put(poNumber, orders == null ? List.of() : orders);
+        }
+        return results;
+    }
+
+    /**
+     * Scheduled task: rebuild when there is no filter or it is due, otherwise add changed POs.
+     * Failures keep the current filter.
+     */
+    private void refresh() {
+        boolean full = filter == null || System.nanoTime() - builtAtNanos > rebuildNanos;
+        try {
+            if (full) {
+                rebuild();
+            } else {
+                addChanges();
+            }
+        } catch (Exception e) {
+            refreshFailures.increment();
+            LOG.warn("bloom_refresh_failed", "full", full, "error", e.getMessage());
+        }
+    }
+
+    private void rebuild() throws Exception {
+        long start = System.nanoTime();
+        long next = source.currentWatermark();
+
+        // Collect first: the filter is sized from the number of POs
+        List<List<String>> parts = new ArrayList<>();
+        long total = 0;
+        for (SnapshotSource.Range range : source.partition(partitions)) {
+            List<String> keys = source.loadPoNumbers(range);
+            parts.add(keys);
+            total += keys.size();
+        }
+
+        BloomFilter built = BloomFilter.create((long) Math.ceil(total * HEADROOM), fpp);
+        for (List<String> keys : parts) {
+            for (String key : keys) {
+                built.add(key);
+            }
+        }
+
+        watermark = next;
+        keyCount = total;
+        builtAtNanos = System.nanoTime();
+        filter = built;
+        builds.increment();
+        LOG.info("bloom_built", "pos", total, "bits", built.getBitCount(), "hashes", built.getHashCount(),
+            "ms", TimeUnit.NANOSECONDS.toMillis(builtAtNanos - start));
+    }
+
+    private void addChanges() throws Exception {
+        SnapshotSource.Changes changes = source.loadChangesSince(watermark - overlapMillis);
+        BloomFilter current = filter;
+        for (String key : changes.byPoNumber.keySet()) {
+            if (!current.mightContain(key)) {
+                current.add(key);
+                keyCount++;
+            }
+        }
+        watermark = changes.watermark;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy();
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        BloomFilter current = filter;
+        long negatives = rejected.sum();
+        long fp = falsePositives.sum();
+        metrics.put("bloom_keys", current == null ? 0 : keyCount);
+        metrics.put("bloom_rejected", negatives);
+        metrics.put("bloom_passed", passed.sum());
+        metrics.put("bloom_false_positives", fp);
+        metrics.put("bloom_observed_fpp", negatives + fp == 0 ? 0.0 : (double) fp / (negatives + fp));
+        metrics.put("bloom_expected_fpp", current == null ? 0.0 : current.expectedFalsePositiveProbability());
+        metrics.put("bloom_builds", builds.sum());
+        metrics.put("bloom_refresh_failures", refreshFailures.sum());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        delegate.close();
+    }
+}
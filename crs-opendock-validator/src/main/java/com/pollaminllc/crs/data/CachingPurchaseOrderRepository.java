@@ -0,0 +1,368 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache in front of another PurchaseOrderRepository.
+ *
+ * - Found POs are cached for cache.ttl_seconds.
+ * - Empty (not found) results are cached for the shorter cache.negative_ttl_seconds,
+ *   so a PO created after a 404 becomes visible quickly.
+ * - The cache holds at most cache.max_entries keys; the least recently used key is evicted first.
+ * - Exceptions from the delegate are never cached.
+ *
+ * With cache.stale_enabled, found POs are kept for up to cache.max_stale_seconds past
+ * their TTL. An expired entry is still refreshed from the delegate first, but if that
+ * throws or times out the stale copy is returned instead. After such a failure the key
+ * is answered from the stale copy straight away and refreshed on a background thread,
+ * at most once per cache.stale_refresh_interval_ms, so callers never wait on the
+ * database while it is down and it is not hit harder than usual.
+ *
+ * Keys are normalized with {@link PoNumbers#normalize(String)}; the delegate is called
+ * with the caller's PO number. Background refreshes, which have no caller, use the key.
+ */
+public class CachingPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private static final Logger LOG = Logger.get("CachingRepository");
+
+    private final PurchaseOrderRepository delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final boolean staleEnabled;
+    private final long maxStaleNanos;
+    private final long refreshIntervalNanos;
+    // Budget for each background refresh, like a request's (deadline.budget_ms)
+    private final long refreshBudgetMs;
+
+    // Access-ordered so iteration order is least recently used first
+    private final Map<String, CacheEntry> entries;
+
+    // Background refreshes for stale keys; null unless stale serving is enabled
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public CachingPurchaseOrderRepository(PurchaseOrderRepository delegate, Config config) {
+        this.delegate = delegate;
+        this.maxEntries = Math.max(1, config.getCacheMaxEntries());
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(config.getCacheTtlSeconds());
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(config.getCacheNegativeTtlSeconds());
+        this.staleEnabled = config.isCacheStaleEnabled();
+        this.maxStaleNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getCacheMaxStaleSeconds()));
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getCacheStaleRefreshIntervalMs()));
+        this.refreshBudgetMs = config.getDeadlineBudgetMs();
+        this.entries = new LinkedHashMap<String, CacheEntry>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        if (staleEnabled) {
+            AtomicInteger threadId = new AtomicInteger();
+            int threads = Math.max(1, config.getCacheRefreshThreads());
+            this.refreshExecutor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                r -> {
+                    Thread t = new Thread(r, "cache-refresh-" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // Rejected refreshes are released in refreshAsync and tried again on a later request
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        } else {
+            this.refreshExecutor = null;
+        }
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        String key = PoNumbers.normalize(poNumber);
+        long now = System.nanoTime();
+
+        CacheEntry cached = get(key, now);
+        if (cached != null) {
+            if (cached.isFresh(now)) {
+                hits.increment();
+                return cached.value;
+            }
+            if (cached.refreshFailed) {
+                // The database failed this key recently: answer stale, refresh in the background
+                refreshAsync(key, cached, now);
+                return serveStale(key, cached, now, "refresh pending");
+            }
+        }
+
+        misses.increment();
+        List<PurchaseOrder> found;
+        try {
+            found = delegate.findByPoNumber(poNumber, deadline);
+        } catch (Exception e) {
+            if (cached == null) {
+                throw e;
+            }
+            cached.markRefreshFailed(now, refreshIntervalNanos);
+            return serveStale(key, cached, now, e.getMessage());
+        }
+        List<PurchaseOrder> result = found == null ? List.of() : List.copyOf(found);
+        put(key, result, System.nanoTime());
+        return result;
+    }
+
+    /**
+     * Serve what is cached and fetch only the misses from the delegate, in one batch.
+     * If the batch fails and every missing key has a stale copy, the stale copies are served.
+     */
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        Map<String, List<PurchaseOrder>> byKey = new LinkedHashMap<>();
+        // Key -> the first caller PO number with that key, which is what the delegate is asked for
+        Map<String, String> missing = new LinkedHashMap<>();
+        Map<String, CacheEntry> stale = new LinkedHashMap<>();
+        long now = System.nanoTime();
+
+        for (String poNumber : poNumbers) {
+            String key = PoNumbers.normalize(poNumber);
+            if (byKey.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            CacheEntry cached = get(key, now);
+            if (cached != null && cached.isFresh(now)) {
+                hits.increment();
+                byKey.put(key, cached.value);
+            } else if (cached != null && cached.refreshFailed) {
+                refreshAsync(key, cached, now);
+                byKey.put(key, serveStale(key, cached, now, "refresh pending"));
+            } else {
+                misses.increment();
+                missing.put(key, poNumber);
+                if (cached != null) {
+                    stale.put(key, cached);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, List<PurchaseOrder>> fetched;
+            try {
+                fetched = delegate.findByPoNumbers(missing.values(), deadline);
+            } catch (Exception e) {
+                if (stale.size() < missing.size()) {
+                    throw e;
+                }
+                for (Map.Entry<String, CacheEntry> entry : stale.entrySet()) {
+                    entry.getValue().markRefreshFailed(now, refreshIntervalNanos);
+                    byKey.put(entry.getKey(), serveStale(entry.getKey(), entry.getValue(), now, e.getMessage()));
+                }
+                fetched = Map.of();
+            }
+            long fetchedAt = System.nanoTime();
+            for (Map.Entry<String, String> miss : missing.entrySet()) {
+                String key = miss.getKey();
+                if (byKey.containsKey(key)) {
+                    continue;
+                }
+                List<PurchaseOrder> found = fetched.get(miss.getValue());
+                List<PurchaseOrder> result = found == null ? List.of() : List.copyOf(found);
+                put(key, result, fetchedAt);
+                byKey.put(key, result);
+            }
+        }
+
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            results.put(poNumber, byKey.get(PoNumbers.normalize(poNumber)));
+        }
+        return results;
+    }
+
+    private List<PurchaseOrder> serveStale(String key, CacheEntry entry, long now, String reason) {
+        staleServed.increment();
+        LOG.info("served_stale", "poNumber", key,
+            "staleSeconds", TimeUnit.NANOSECONDS.toSeconds(now - entry.expiresAtNanos), "reason", reason);
+        return entry.value;
+    }
+
+    /**
+     * Refresh a stale key on the background executor, unless one is already running
+     * or the last attempt was too recent.
+     */
+    private void refreshAsync(String key, CacheEntry entry, long now) {
+        if (now - entry.retryAfterNanos < 0 || !refreshing.add(key)) {
+            return;
+        }
+        // Push the next attempt out now so a queued refresh is not submitted twice
+        entry.markRefreshFailed(now, refreshIntervalNanos);
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    List<PurchaseOrder> found = delegate.findByPoNumber(key, Deadline.after(refreshBudgetMs));
+                    put(key, found == null ? List.of() : List.copyOf(found), System.nanoTime());
+                    refreshes.increment();
+                    LOG.info("stale_refreshed", "poNumber", key);
+                } catch (Exception e) {
+                    refreshFailures.increment();
+                    entry.markRefreshFailed(System.nanoTime(), refreshIntervalNanos);
+                    LOG.warn("stale_refresh_failed", "poNumber", key, "error", e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * Get a live entry: fresh, or stale but still within the allowed staleness.
+     */
+    private CacheEntry get(String key, long now) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.staleUntilNanos >= 0) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(String key, List<PurchaseOrder> value, long now) {
+        long ttl = value.isEmpty() ? negativeTtlNanos : ttlNanos;
+        if (ttl <= 0) {
+            return;
+        }
+        // Only found POs may be served stale; a stale "not found" would help nobody
+        long staleFor = staleEnabled && !value.isEmpty() ? maxStaleNanos : 0;
+        CacheEntry entry = new CacheEntry(value, now + ttl, now + ttl + staleFor);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Drop a cached entry, e.g. after a PO is known to have changed.
+     */
+    public void invalidate(String poNumber) {
+        synchronized (entries) {
+            entries.remove(PoNumbers.normalize(poNumber));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        metrics.put("cache_hits", hits.sum());
+        metrics.put("cache_misses", misses.sum());
+        metrics.put("cache_evictions", evictions.sum());
+        metrics.put("cache_expirations", expirations.sum());
+        metrics.put("cache_size", size());
+        if (staleEnabled) {
+            metrics.put("cache_stale_served", staleServed.sum());
+            metrics.put("cache_stale_refreshes", refreshes.sum());
+            metrics.put("cache_stale_refresh_failures", refreshFailures.sum());
+        }
+        return metrics;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy();
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        delegate.close();
+    }
+
+    private static final class CacheEntry {
+        final List<PurchaseOrder> value;
+        final long expiresAtNanos;
+        final long staleUntilNanos;
+
+        // Set once a refresh of this stale entry has failed; the entry is replaced on success
+        volatile boolean refreshFailed;
+        volatile long retryAfterNanos;
+
+        CacheEntry(List<PurchaseOrder> value, long expiresAtNanos, long staleUntilNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.staleUntilNanos = staleUntilNanos;
+        }
+
+        boolean isFresh(long now) {
+            return now - expiresAtNanos < 0;
+        }
+
+        void markRefreshFailed(long now, long retryIntervalNanos) {
+            retryAfterNanos = now + retryIntervalNanos;
+            refreshFailed = true;
+        }
+    }
+}
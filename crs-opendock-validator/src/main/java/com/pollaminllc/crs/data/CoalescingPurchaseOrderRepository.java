@@ -0,0 +1,130 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight wrapper around another PurchaseOrderRepository.
+ *
+ * When several threads look up the same normalized PO number at the same time,
+ * only the first one calls the delegate, with its own PO number. The others wait for that call and
+ * receive the same result, or the same exception.
+ * Nothing is remembered once the call completes; caching is a separate decorator.
+ */
+public class CoalescingPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private final PurchaseOrderRepository delegate;
+    private final ConcurrentHashMap<String, CompletableFuture<List<PurchaseOrder>>> inFlight =
+        new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder coalescedWaiters = new LongAdder();
+
+    public CoalescingPurchaseOrderRepository(PurchaseOrderRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    /**
+     * Waiters give up at their own deadline; the shared call runs under the first caller's deadline.
+     */
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        String key = PoNumbers.normalize(poNumber);
+
+        CompletableFuture<List<PurchaseOrder>> call = new CompletableFuture<>();
+        CompletableFuture<List<PurchaseOrder>> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalescedWaiters.increment();
+            return await(existing, deadline);
+        }
+
+        lookups.increment();
+        try {
+            List<PurchaseOrder> result = delegate.findByPoNumber(poNumber, deadline);
+            call.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Batches are passed straight through; they are already one call per group of POs.
+     */
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return delegate.findByPoNumbers(poNumbers);
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        return delegate.findByPoNumbers(poNumbers, deadline);
+    }
+
+    private List<PurchaseOrder> await(CompletableFuture<List<PurchaseOrder>> call, Deadline deadline)
+            throws Exception {
+        try {
+            if (deadline.isUnbounded()) {
+                return call.get();
+            }
+            return call.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw deadline.exceeded();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Number of callers that shared another caller's in-flight lookup
+     * instead of querying the delegate themselves.
+     */
+    public long getCoalescedWaiters() {
+        return coalescedWaiters.sum();
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        metrics.put("coalesce_lookups", lookups.sum());
+        metrics.put("coalesce_waiters", coalescedWaiters.sum());
+        metrics.put("coalesce_in_flight", inFlight.size());
+        return metrics;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
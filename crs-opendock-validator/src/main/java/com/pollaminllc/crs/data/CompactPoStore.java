@@ -0,0 +1,432 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable, columnar PO index for large snapshots.
+ *
+ * Instead of one PurchaseOrder bean (seven object fields, two LocalDates and
+ * per-row String copies) per row, every field is a primitive column:
+ * - PO numbers: ASCII bytes packed into one array, found through an open-addressing
+ *   int hash table
+ * - vendorId, vendorName, status, locationCode: int references into shared
+ *   dictionaries, so each distinct value is stored once
+ * - orderDate, expectedDate: epoch days
+ *
+ * That is roughly 50 bytes per PO instead of several hundred. A lookup builds
+ * fresh PurchaseOrder beans from the columns (dictionary strings are shared, not
+ * copied), so callers cannot modify the store. The PO number on returned beans is
+ * the normalized key.
+ *
+ * Keys are ASCII, like every PO number that passes the format check; rows with
+ * other keys are skipped by the builder.
+ */
+final class CompactPoStore implements PoIndex {
+
+    private static final int NULL_REF = -1;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    // Per key (entry): key bytes are keyBytes[keyOffsets[e] .. keyOffsets[e + 1]),
+    // rows are rowStarts[e] .. rowStarts[e + 1]
+    private final byte[] keyBytes;
+    private final int[] keyOffsets;
+    private final int[] rowStarts;
+    // Entry index + 1 per slot, 0 = empty; length is a power of two
+    private final int[] table;
+
+    // Per row
+    private final int[] vendorIds;
+    private final int[] vendorNames;
+    private final int[] statuses;
+    private final int[] locations;
+    private final int[] orderDates;
+    private final int[] expectedDates;
+
+    private final String[] dictionary;
+
+    private CompactPoStore(Builder builder, int[] rowOrder) {
+        int entries = builder.entryCount;
+        int rows = builder.rowCount;
+
+        // Rows arrive in any order; lay them out grouped by entry
+        this.rowStarts = new int[entries + 1];
+        for (int r = 0; r < rows; r++) {
+            rowStarts[builder.rowEntry[r] + 1]++;
+        }
+        for (int e = 0; e < entries; e++) {
+            rowStarts[e + 1] += rowStarts[e];
+        }
+        this.vendorIds = new int[rows];
+        this.vendorNames = new int[rows];
+        this.statuses = new int[rows];
+        this.locations = new int[rows];
+        this.orderDates = new int[rows];
+        this.expectedDates = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            int r = rowOrder[i];
+            vendorIds[i] = builder.vendorIds[r];
+            vendorNames[i] = builder.vendorNames[r];
+            statuses[i] = builder.statuses[r];
+            locations[i] = builder.locations[r];
+            orderDates[i] = builder.orderDates[r];
+            expectedDates[i] = builder.expectedDates[r];
+        }
+
+        this.keyBytes = Arrays.copyOf(builder.keyBytes, builder.keyLength);
+        this.keyOffsets = Arrays.copyOf(builder.keyOffsets, entries + 1);
+        this.dictionary = builder.dictionaryValues.toArray(new String[0]);
+
+        this.table = new int[tableSize(entries)];
+        int mask = table.length - 1;
+        for (int e = 0; e < entries; e++) {
+            int slot = hashKey(e) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = e + 1;
+        }
+    }
+
+    @Override
+    public List<PurchaseOrder> get(String poNumber) {
+        if (poNumber == null) {
+            return null;
+        }
+        int mask = table.length - 1;
+        for (int slot = mix(poNumber.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                return null;
+            }
+            if (keyEquals(entry, poNumber)) {
+                return materialize(entry, poNumber);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return keyOffsets.length - 1;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, List<PurchaseOrder>> action) {
+        for (int e = 0; e < size(); e++) {
+            String key = new String(keyBytes, keyOffsets[e], keyOffsets[e + 1] - keyOffsets[e],
+                StandardCharsets.US_ASCII);
+            action.accept(key, materialize(e, key));
+        }
+    }
+
+    /**
+     * Heap used by the arrays, not counting the dictionary strings themselves.
+     */
+    long approximateBytes() {
+        long bytes = keyBytes.length + 4L * (keyOffsets.length + rowStarts.length + table.length);
+        bytes += 4L * 6 * vendorIds.length;
+        bytes += 4L * dictionary.length;
+        return bytes;
+    }
+
+    int dictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * Build a store holding the same entries as {@code index}.
+     */
+    static CompactPoStore copyOf(PoIndex index) {
+        Builder builder = new Builder();
+        index.forEach(builder::addAll);
+        return builder.build();
+    }
+
+    // Column access for SnapshotFile.write, which encodes rows without building beans.
+    // References are dictionary indexes (NULL_REF = null), dates epoch days (Integer.MIN_VALUE = null).
+
+    /**
+     * Entry indexes sorted by the unsigned bytes of their keys.
+     */
+    int[] entriesInKeyOrder() {
+        int n = size();
+        int[] src = new int[n];
+        for (int e = 0; e < n; e++) {
+            src[e] = e;
+        }
+        // Bottom-up merge sort: primitive ints, unlike Arrays.sort with a comparator
+        int[] dst = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = compareKeys(src[j], src[i]) < 0 ? src[j++] : src[i++];
+                }
+                while (i < mid) {
+                    dst[k++] = src[i++];
+                }
+                while (j < hi) {
+                    dst[k++] = src[j++];
+                }
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+
+    int keyLength(int entry) {
+        return keyOffsets[entry + 1] - keyOffsets[entry];
+    }
+
+    void writeKey(int entry, OutputStream out) throws IOException {
+        out.write(keyBytes, keyOffsets[entry], keyLength(entry));
+    }
+
+    int rowStart(int entry) {
+        return rowStarts[entry];
+    }
+
+    int rowEnd(int entry) {
+        return rowStarts[entry + 1];
+    }
+
+    int vendorIdRef(int row) {
+        return vendorIds[row];
+    }
+
+    int vendorNameRef(int row) {
+        return vendorNames[row];
+    }
+
+    int statusRef(int row) {
+        return statuses[row];
+    }
+
+    int locationRef(int row) {
+        return locations[row];
+    }
+
+    int orderEpochDay(int row) {
+        return orderDates[row];
+    }
+
+    int expectedEpochDay(int row) {
+        return expectedDates[row];
+    }
+
+    String dictionaryValue(int ref) {
+        return lookup(ref);
+    }
+
+    private List<PurchaseOrder> materialize(int entry, String key) {
+        int from = rowStarts[entry];
+        int to = rowStarts[entry + 1];
+        if (to - from == 1) {
+            return List.of(row(from, key));
+        }
+        PurchaseOrder[] orders = new PurchaseOrder[to - from];
+        for (int r = from; r < to; r++) {
+            orders[r - from] = row(r, key);
+        }
+        return List.of(orders);
+    }
+
+    private PurchaseOrder row(int r, String key) {
+        PurchaseOrder po = new PurchaseOrder(key);
+        po.setVendorId(lookup(vendorIds[r]));
+        po.setVendorName(lookup(vendorNames[r]));
+        po.setStatus(lookup(statuses[r]));
+        po.setLocationCode(lookup(locations[r]));
+        po.setOrderDate(orderDates[r] == NULL_DATE ? null : LocalDate.ofEpochDay(orderDates[r]));
+        po.setExpectedDate(expectedDates[r] == NULL_DATE ? null : LocalDate.ofEpochDay(expectedDates[r]));
+        return po;
+    }
+
+    private String lookup(int ref) {
+        return ref == NULL_REF ? null : dictionary[ref];
+    }
+
+    private boolean keyEquals(int entry, String key) {
+        int from = keyOffsets[entry];
+        int length = keyOffsets[entry + 1] - from;
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (keyBytes[from + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareKeys(int a, int b) {
+        return Arrays.compareUnsigned(keyBytes, keyOffsets[a], keyOffsets[a + 1],
+            keyBytes, keyOffsets[b], keyOffsets[b + 1]);
+    }
+
+    /**
+     * Same value as String.hashCode() of the key, so lookups reuse the String's cached hash.
+     */
+    private int hashKey(int entry) {
+        int h = 0;
+        for (int i = keyOffsets[entry]; i < keyOffsets[entry + 1]; i++) {
+            h = 31 * h + keyBytes[i];
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Load factor at most 0.5
+    private static int tableSize(int entries) {
+        int size = 2;
+        while (size < entries * 2L && size < (1 << 30)) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Collects rows in any order (rows of one PO may arrive in different load ranges)
+     * and builds the store. Not thread-safe; discard after {@link #build()}.
+     */
+    static final class Builder {
+        private final Map<String, Integer> entries = new HashMap<>();
+        private final Map<String, Integer> dictionaryRefs = new HashMap<>();
+        private final List<String> dictionaryValues = new ArrayList<>();
+
+        private byte[] keyBytes = new byte[1024];
+        private int keyLength;
+        private int[] keyOffsets = new int[129];
+        private int entryCount;
+
+        private int[] rowEntry = new int[128];
+        private int[] vendorIds = new int[128];
+        private int[] vendorNames = new int[128];
+        private int[] statuses = new int[128];
+        private int[] locations = new int[128];
+        private int[] orderDates = new int[128];
+        private int[] expectedDates = new int[128];
+        private int rowCount;
+        private int skipped;
+
+        /**
+         * Add one PO row under its normalized PO number.
+         */
+        Builder add(String key, PurchaseOrder po) {
+            if (key == null || !isAscii(key)) {
+                skipped++;
+                return this;
+            }
+            Integer entry = entries.get(key);
+            if (entry == null) {
+                entry = entryCount;
+                entries.put(key, entry);
+                appendKey(key);
+            }
+
+            if (rowCount == rowEntry.length) {
+                int capacity = rowCount * 2;
+                rowEntry = Arrays.copyOf(rowEntry, capacity);
+                vendorIds = Arrays.copyOf(vendorIds, capacity);
+                vendorNames = Arrays.copyOf(vendorNames, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                locations = Arrays.copyOf(locations, capacity);
+                orderDates = Arrays.copyOf(orderDates, capacity);
+                expectedDates = Arrays.copyOf(expectedDates, capacity);
+            }
+            rowEntry[rowCount] = entry;
+            vendorIds[rowCount] = ref(po.getVendorId());
+            vendorNames[rowCount] = ref(po.getVendorName());
+            statuses[rowCount] = ref(po.getStatus());
+            locations[rowCount] = ref(po.getLocationCode());
+            orderDates[rowCount] = po.getOrderDate() == null ? NULL_DATE : (int) po.getOrderDate().toEpochDay();
+            expectedDates[rowCount] = po.getExpectedDate() == null ? NULL_DATE : (int) po.getExpectedDate().toEpochDay();
+            rowCount++;
+            return this;
+        }
+
+        Builder addAll(String key, List<PurchaseOrder> orders) {
+            for (PurchaseOrder po : orders) {
+                add(key, po);
+            }
+            return this;
+        }
+
+        int getSkipped() {
+            return skipped;
+        }
+
+        CompactPoStore build() {
+            // Stable counting sort of row indexes by entry
+            int[] next = new int[entryCount + 1];
+            for (int r = 0; r < rowCount; r++) {
+                next[rowEntry[r] + 1]++;
+            }
+            for (int e = 0; e < entryCount; e++) {
+                next[e + 1] += next[e];
+            }
+            int[] order = new int[rowCount];
+            for (int r = 0; r < rowCount; r++) {
+                order[next[rowEntry[r]]++] = r;
+            }
+            return new CompactPoStore(this, order);
+        }
+
+        private void appendKey(String key) {
+            if (keyLength + key.length() > keyBytes.length) {
+                keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, keyLength + key.length()));
+            }
+            for (int i = 0; i < key.length(); i++) {
+                keyBytes[keyLength++] = (byte) key.charAt(i);
+            }
+            entryCount++;
+            if (entryCount + 1 > keyOffsets.length) {
+                keyOffsets = Arrays.copyOf(keyOffsets, keyOffsets.length * 2);
+            }
+            keyOffsets[entryCount] = keyLength;
+        }
+
+        private int ref(String value) {
+            if (value == null) {
+                return NULL_REF;
+            }
+            Integer ref = dictionaryRefs.get(value);
+            if (ref == null) {
+                ref = dictionaryValues.size();
+                dictionaryRefs.put(value, ref);
+                dictionaryValues.add(value);
+            }
+            return ref;
+        }
+
+        private static boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool used by Db2Repository.
+ *
+ * - At most db.pool.max_size connections exist at once; borrowers wait up to
+ *   db.pool.acquire_timeout_ms for one to be returned.
+ * - Idle connections are validated on borrow and discarded if broken.
+ * - A background task closes connections idle longer than db.pool.idle_timeout_ms,
+ *   while keeping at least db.pool.min_size connections open.
+ * - Each pooled connection keeps a small cache of PreparedStatements so the
+ *   PO query is only prepared once per connection.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = Logger.get("ConnectionPool");
+
+    /**
+     * Opens a new physical connection to the database.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // Permits represent connections that may still be handed out
+    private final Semaphore permits;
+    // Idle connections, most recently returned first (LIFO keeps hot connections hot)
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(Config config, ConnectionFactory factory) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, config.getDbPoolMaxSize());
+        this.minSize = Math.max(0, Math.min(config.getDbPoolMinSize(), maxSize));
+        this.acquireTimeoutMillis = config.getDbPoolAcquireTimeoutMs();
+        this.idleTimeoutMillis = config.getDbPoolIdleTimeoutMs();
+        this.validationTimeoutSeconds = config.getDbPoolValidationTimeoutSeconds();
+        this.statementCacheSize = config.getDbPoolStatementCacheSize();
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1000, config.getDbPoolEvictionIntervalMs());
+        evictor.scheduleWithFixedDelay(this::maintain, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool, waiting up to the acquire timeout.
+     * The returned connection must be given back with {@link PooledConnection#close()}.
+     *
+     * @throws SQLException if no connection becomes available in time or one cannot be opened
+     */
+    public PooledConnection borrow() throws SQLException {
+        return borrow(acquireTimeoutMillis);
+    }
+
+    /**
+     * Borrow a connection, waiting at most the given number of milliseconds.
+     */
+    public PooledConnection borrow(long timeoutMillis) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.incrementAndGet();
+                throw new SQLException(String.format(
+                    "Timed out after %d ms waiting for a database connection (pool size %d)",
+                    timeoutMillis, maxSize
+                ));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.isUsable(validationTimeoutSeconds)) {
+                    pooled.markBorrowed();
+                    return pooled;
+                }
+                discard(pooled);
+            }
+
+            pooled = open();
+            pooled.markBorrowed();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool.
+     */
+    void release(PooledConnection pooled) {
+        if (closed || pooled.isBroken()) {
+            discard(pooled);
+        } else {
+            pooled.markIdle();
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = factory.create();
+        totalConnections.incrementAndGet();
+        return new PooledConnection(this, connection, statementCacheSize);
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    /**
+     * Evict connections idle past the timeout and top the pool back up to its minimum size.
+     */
+    private void maintain() {
+        if (closed) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.getLastUsedMillis() > idleTimeoutMillis && idle.removeFirstOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+
+        while (!closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = open();
+                pooled.markIdle();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                LOG.warn("open_failed", "error", e.getMessage());
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public int getActiveCount() {
+        return Math.max(0, totalConnections.get() - idle.size());
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * A connection on loan from the pool. Closing it returns it to the pool;
+     * statements obtained from {@link #prepare(String)} are owned by the pool and must not be closed.
+     */
+    public static final class PooledConnection implements AutoCloseable {
+
+        private final ConnectionPool pool;
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+        private boolean borrowed;
+        private boolean broken;
+
+        private PooledConnection(ConnectionPool pool, Connection connection, int cacheSize) {
+            this.pool = pool;
+            this.connection = connection;
+            this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > cacheSize) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Get a cached PreparedStatement for the SQL, preparing it on first use.
+         * Parameters are cleared before the statement is returned.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null || stmt.isClosed()) {
+                stmt = connection.prepareStatement(sql);
+                statements.put(sql, stmt);
+            } else {
+                stmt.clearParameters();
+            }
+            return stmt;
+        }
+
+        /**
+         * Flag this connection as unusable so it is closed instead of returned to the pool.
+         */
+        public void markBroken() {
+            broken = true;
+        }
+
+        boolean isBroken() {
+            return broken;
+        }
+
+        long getLastUsedMillis() {
+            return lastUsedMillis;
+        }
+
+        void markBorrowed() {
+            borrowed = true;
+        }
+
+        void markIdle() {
+            borrowed = false;
+            lastUsedMillis = System.currentTimeMillis();
+        }
+
+        boolean isUsable(int validationTimeoutSeconds) {
+            try {
+                return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            for (PreparedStatement stmt : statements.values()) {
+                closeQuietly(stmt);
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.warn("close_failed", "error", e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (borrowed) {
+                borrowed = false;
+                pool.release(this);
+            }
+        }
+
+        private static void closeQuietly(PreparedStatement stmt) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                // Statement is being discarded anyway
+            }
+        }
+    }
+}
@@ -1,20 +1,41 @@
 package com.pollaminllc.crs.data;
 
+import com.pollaminllc.crs.jfr.DbQueryEvent;
 import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.resilience.DeadlineExceededException;
 import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * DB2 implementation of PurchaseOrderRepository.
  * Connects to Power Enterprise on IBM i via JDBC.
+ * Connections come from a bounded ConnectionPool so lookups from
+ * concurrent HTTP worker threads run in parallel.
  *
- * TODO: This is a placeholder. Implementation requires:
+ * Also a SnapshotSource: open POs (all their rows) are bulk-loaded by relative record number
+ * ranges and refreshed from a change-timestamp column.
+ *
+ * TODO: PO_QUERY and the snapshot queries are placeholders. Finalizing it requires:
  * 1. Power Enterprise table schema from CRS team
  * 2. JT400 JDBC driver (jt400.jar)
  * 3. Network connectivity to IBM i
@@ -26,14 +47,18 @@ import java.util.List;
  *   jt400.jar (IBM Toolbox for Java)
  *   Download: https://sourceforge.net/projects/jt400/
  */
-public class Db2Repository implements PurchaseOrderRepository {
+public class Db2Repository implements PurchaseOrderRepository, SnapshotSource {
+
+    private static final Logger LOG = Logger.get("Db2Repository");
 
     private final Config config;
-    private Connection connection;
+    private final ConnectionPool pool;
+    // Cancels statements whose deadline is closer than the one-second JDBC timeout granularity
+    private final ScheduledExecutorService canceller;
 
     // TODO: Update this query based on actual Power Enterprise schema
     // This is a placeholder based on typical PO table structures
-    private static final String PO_QUERY =
+    private static final String PO_SELECT =
         "SELECT " +
         "    PO_NUMBER, " +
         "    VENDOR_ID, " +
@@ -42,24 +67,59 @@ public class Db2Repository implements PurchaseOrderRepository {
         "    EXPECTED_DATE, " +
         "    STATUS, " +
         "    LOCATION_CODE " +
-        "FROM PURCHASE_ORDERS " +  // TODO: Replace with actual table name
-        "WHERE PO_NUMBER = ?";
+        "FROM PURCHASE_ORDERS ";  // TODO: Replace with actual table name
+
+    private static final String PO_QUERY = PO_SELECT + "WHERE PO_NUMBER = ?";
+
+    // Largest IN list sent in one statement; bigger batches are split
+    private static final int MAX_IN_LIST = 128;
+
+    // TODO: Snapshot queries assume the table has a change timestamp column (LAST_CHANGED)
+    // and that open POs are the statuses PurchaseOrder.isOpen() accepts
+    private static final String OPEN_FILTER = "UPPER(STATUS) IN ('OPEN', 'ACTIVE', 'PENDING') ";
+
+    private static final String MAX_RRN_QUERY =
+        "SELECT MAX(RRN(PURCHASE_ORDERS)) FROM PURCHASE_ORDERS";
+
+    // Every row in the range of a PO number with an open row anywhere; a PO's rows may span ranges
+    private static final String OPEN_RANGE_QUERY =
+        PO_SELECT + "WHERE RRN(PURCHASE_ORDERS) >= ? AND RRN(PURCHASE_ORDERS) < ? " +
+        "AND PO_NUMBER IN (SELECT PO_NUMBER FROM PURCHASE_ORDERS WHERE " + OPEN_FILTER + ")";
+
+    private static final String PO_NUMBER_RANGE_QUERY =
+        "SELECT PO_NUMBER FROM PURCHASE_ORDERS WHERE RRN(PURCHASE_ORDERS) >= ? AND RRN(PURCHASE_ORDERS) < ?";
+
+    private static final String CHANGES_QUERY =
+        PO_SELECT + "WHERE PO_NUMBER IN " +
+        "(SELECT PO_NUMBER FROM PURCHASE_ORDERS WHERE LAST_CHANGED > ?)";
+
+    private static final String WATERMARK_QUERY =
+        "SELECT CURRENT TIMESTAMP FROM SYSIBM.SYSDUMMY1";
+
+    // Rows fetched per round-trip during bulk loads
+    private static final int SNAPSHOT_FETCH_SIZE = 1000;
 
     public Db2Repository(Config config) {
         this.config = config;
+        this.pool = new ConnectionPool(config, this::openConnection);
+        this.canceller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db2-query-cancel");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     /**
-     * Get or create database connection.
+     * Open a new physical database connection for the pool.
      * Uses JT400 JDBC driver for IBM i / AS400 connectivity.
      */
-    private Connection getConnection() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            return connection;
-        }
-
+    private Connection openConnection() throws SQLException {
         // Load JT400 driver
-        Class.forName("com.ibm.as400.access.AS400JDBCDriver");
+        try {
+            Class.forName("com.ibm.as400.access.AS400JDBCDriver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JT400 JDBC driver (jt400.jar) not found on classpath", e);
+        }
 
         // Build connection string
         // Format: jdbc:as400://hostname;libraries=LIBRARYNAME;prompt=false
@@ -69,81 +129,449 @@ public class Db2Repository implements PurchaseOrderRepository {
             config.getDbName()
         );
 
-        System.out.println("[Db2Repository] Connecting to: " + config.getDbServer());
+        LOG.info("connecting", "server", config.getDbServer());
 
-        connection = DriverManager.getConnection(
+        Connection connection = DriverManager.getConnection(
             url,
             config.getDbUser(),
             config.getDbPassword()
         );
 
-        System.out.println("[Db2Repository] Connected successfully");
+        LOG.info("connected", "server", config.getDbServer());
         return connection;
     }
 
     @Override
     public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    /**
+     * The pool wait is capped by the time left and the query runs with a matching
+     * JDBC query timeout, cancelled at the deadline if less than a second is left;
+     * running out of time surfaces as DeadlineExceededException.
+     * The PO number is trimmed (PoNumbers.normalize), as in the batch lookup.
+     */
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
         List<PurchaseOrder> results = new ArrayList<>();
 
-        // TODO: Remove this exception once schema is known
-        throw new UnsupportedOperationException(
-            "Db2Repository is not yet implemented. " +
-            "Please use StubRepository for testing until Power Enterprise schema is provided."
-        );
+        // TODO: Column names follow the placeholder PO_QUERY until the schema is known
+        DbQueryEvent event = new DbQueryEvent();
+        event.begin();
+        long borrowStart = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = borrow(deadline)) {
+            event.poolWait = System.nanoTime() - borrowStart;
+            // The pool wait may have used up the budget
+            deadline.check();
+            QueryCancel cancel = null;
+            try {
+                PreparedStatement stmt = conn.prepare(PO_QUERY);
+                stmt.setQueryTimeout(queryTimeoutSeconds(deadline));
+                stmt.setString(1, PoNumbers.normalize(poNumber));
 
-        /*
-        // Uncomment and update once schema is known:
+                cancel = cancelAtDeadline(stmt, deadline);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(mapRow(rs));
+                    }
+                } finally {
+                    unschedule(cancel);
+                }
+            } catch (SQLException e) {
+                // Don't hand a possibly dead connection to the next caller
+                markBrokenUnlessCancelled(conn, e, cancel);
+                throw e;
+            }
+        } catch (SQLException e) {
+            event.error = e.getMessage();
+            throw translate(e, deadline);
+        } finally {
+            commit(event, 1, results.size());
+        }
+
+        return results;
+    }
+
+    /**
+     * Look up many PO numbers with WHERE PO_NUMBER IN (...) queries. PO numbers are
+     * trimmed for the query and the results keyed by the caller's PO numbers.
+     * IN lists are padded up to the next power of two (repeating the last number)
+     * so only a handful of distinct statements end up in the per-connection cache.
+     */
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
 
-        try (PreparedStatement stmt = getConnection().prepareStatement(PO_QUERY)) {
-            stmt.setString(1, poNumber);
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        Map<String, List<PurchaseOrder>> byKey = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            byKey.put(PoNumbers.normalize(poNumber), new ArrayList<>());
+        }
+        List<String> keys = new ArrayList<>(byKey.keySet());
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    PurchaseOrder po = new PurchaseOrder();
-                    po.setPoNumber(rs.getString("PO_NUMBER"));
-                    po.setVendorId(rs.getString("VENDOR_ID"));
-                    po.setVendorName(rs.getString("VENDOR_NAME"));
+        DbQueryEvent event = new DbQueryEvent();
+        event.begin();
+        long borrowStart = System.nanoTime();
+        int rows = 0;
+        try (ConnectionPool.PooledConnection conn = borrow(deadline)) {
+            event.poolWait = System.nanoTime() - borrowStart;
+            QueryCancel cancel = null;
+            try {
+                for (int from = 0; from < keys.size(); from += MAX_IN_LIST) {
+                    // The pool wait or earlier chunks may have used up the budget
+                    deadline.check();
+                    cancel = null;
+                    List<String> chunk = keys.subList(from, Math.min(from + MAX_IN_LIST, keys.size()));
+                    int size = inListSize(chunk.size());
 
-                    java.sql.Date orderDate = rs.getDate("ORDER_DATE");
-                    if (orderDate != null) {
-                        po.setOrderDate(orderDate.toLocalDate());
+                    PreparedStatement stmt = conn.prepare(inQuery(size));
+                    stmt.setQueryTimeout(queryTimeoutSeconds(deadline));
+                    for (int i = 0; i < size; i++) {
+                        stmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
                     }
 
-                    java.sql.Date expectedDate = rs.getDate("EXPECTED_DATE");
-                    if (expectedDate != null) {
-                        po.setExpectedDate(expectedDate.toLocalDate());
+                    cancel = cancelAtDeadline(stmt, deadline);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows++;
+                            PurchaseOrder po = mapRow(rs);
+                            // CHAR columns come back blank-padded
+                            List<PurchaseOrder> matches = byKey.get(PoNumbers.normalize(po.getPoNumber()));
+                            if (matches != null) {
+                                matches.add(po);
+                            }
+                        }
+                    } finally {
+                        unschedule(cancel);
                     }
+                }
+            } catch (SQLException e) {
+                markBrokenUnlessCancelled(conn, e, cancel);
+                throw e;
+            }
+        } catch (SQLException e) {
+            event.error = e.getMessage();
+            throw translate(e, deadline);
+        } finally {
+            commit(event, keys.size(), rows);
+        }
+
+        for (String poNumber : poNumbers) {
+            results.put(poNumber, byKey.get(PoNumbers.normalize(poNumber)));
+        }
+        return results;
+    }
+
+    @Override
+    public long currentWatermark() throws Exception {
+        // The database clock, so watermarks compare with LAST_CHANGED values it wrote
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            try (ResultSet rs = conn.prepare(WATERMARK_QUERY).executeQuery()) {
+                rs.next();
+                return rs.getTimestamp(1).getTime();
+            } catch (SQLException e) {
+                conn.markBroken();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Split 1..MAX(RRN) into equal relative record number ranges. RRN range
+     * predicates are resolved by position on IBM i, so each range query reads
+     * only its own part of the table.
+     */
+    @Override
+    public List<SnapshotSource.Range> partition(int count) throws Exception {
+        long maxRrn;
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            try (ResultSet rs = conn.prepare(MAX_RRN_QUERY).executeQuery()) {
+                maxRrn = rs.next() ? rs.getLong(1) : 0;
+            } catch (SQLException e) {
+                conn.markBroken();
+                throw e;
+            }
+        }
 
-                    po.setStatus(rs.getString("STATUS"));
-                    po.setLocationCode(rs.getString("LOCATION_CODE"));
+        List<SnapshotSource.Range> ranges = new ArrayList<>();
+        long end = maxRrn + 1;
+        int parts = Math.max(1, count);
+        long step = Math.max(1, (maxRrn + parts - 1) / parts);
+        for (long from = 1; from < end; from += step) {
+            ranges.add(new SnapshotSource.Range(from, Math.min(from + step, end)));
+        }
+        return ranges;
+    }
 
-                    results.add(po);
+    @Override
+    public List<PurchaseOrder> loadOpenRange(SnapshotSource.Range range) throws Exception {
+        List<PurchaseOrder> results = new ArrayList<>();
+        DbQueryEvent event = new DbQueryEvent();
+        event.begin();
+        long borrowStart = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            event.poolWait = System.nanoTime() - borrowStart;
+            try {
+                PreparedStatement stmt = conn.prepare(OPEN_RANGE_QUERY);
+                stmt.setQueryTimeout(0);
+                stmt.setFetchSize(SNAPSHOT_FETCH_SIZE);
+                stmt.setLong(1, range.from);
+                stmt.setLong(2, range.to);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(mapRow(rs));
+                    }
                 }
+            } catch (SQLException e) {
+                markBrokenUnlessTimeout(conn, e);
+                throw e;
             }
+        } catch (SQLException e) {
+            event.error = e.getMessage();
+            throw e;
+        } finally {
+            commit(event, 0, results.size());
         }
+        return results;
+    }
 
+    @Override
+    public List<String> loadPoNumbers(SnapshotSource.Range range) throws Exception {
+        List<String> results = new ArrayList<>();
+        DbQueryEvent event = new DbQueryEvent();
+        event.begin();
+        long borrowStart = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            event.poolWait = System.nanoTime() - borrowStart;
+            try {
+                PreparedStatement stmt = conn.prepare(PO_NUMBER_RANGE_QUERY);
+                stmt.setQueryTimeout(0);
+                stmt.setFetchSize(SNAPSHOT_FETCH_SIZE);
+                stmt.setLong(1, range.from);
+                stmt.setLong(2, range.to);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(PoNumbers.normalize(rs.getString(1)));
+                    }
+                }
+            } catch (SQLException e) {
+                markBrokenUnlessTimeout(conn, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            event.error = e.getMessage();
+            throw e;
+        } finally {
+            commit(event, 0, results.size());
+        }
         return results;
-        */
+    }
+
+    @Override
+    public SnapshotSource.Changes loadChangesSince(long watermark) throws Exception {
+        // Read the clock first: rows changed while the query runs are picked up next time
+        long next = currentWatermark();
+        Map<String, List<PurchaseOrder>> changes = new LinkedHashMap<>();
+        int rows = 0;
+
+        DbQueryEvent event = new DbQueryEvent();
+        event.begin();
+        long borrowStart = System.nanoTime();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            event.poolWait = System.nanoTime() - borrowStart;
+            try {
+                PreparedStatement stmt = conn.prepare(CHANGES_QUERY);
+                stmt.setQueryTimeout(0);
+                stmt.setFetchSize(SNAPSHOT_FETCH_SIZE);
+                stmt.setTimestamp(1, new Timestamp(watermark));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        PurchaseOrder po = mapRow(rs);
+                        changes.computeIfAbsent(PoNumbers.normalize(po.getPoNumber()), k -> new ArrayList<>()).add(po);
+                    }
+                }
+            } catch (SQLException e) {
+                markBrokenUnlessTimeout(conn, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            event.error = e.getMessage();
+            throw e;
+        } finally {
+            commit(event, 0, rows);
+        }
+        return new SnapshotSource.Changes(changes, next);
+    }
+
+    private ConnectionPool.PooledConnection borrow(Deadline deadline) throws SQLException {
+        return pool.borrow(deadline.capMillis(pool.getAcquireTimeoutMillis()));
+    }
+
+    /**
+     * JDBC query timeouts are whole seconds (0 = none). Round down so the query gives up
+     * inside the budget, but never below one second; below that, cancelAtDeadline ends it.
+     */
+    private static int queryTimeoutSeconds(Deadline deadline) {
+        if (deadline.isUnbounded()) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, deadline.remainingMillis() / 1000));
+    }
+
+    /**
+     * With less than a second left the one-second query timeout would overrun the budget,
+     * so cancel the statement when the deadline passes. Unschedule once the rows are read.
+     *
+     * @return The scheduled cancel, or null if the query timeout is enough
+     */
+    private QueryCancel cancelAtDeadline(PreparedStatement stmt, Deadline deadline) {
+        if (deadline.isUnbounded() || deadline.remainingMillis() >= 1000) {
+            return null;
+        }
+        QueryCancel cancel = new QueryCancel(stmt);
+        cancel.future = canceller.schedule(cancel, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        return cancel;
+    }
+
+    private static void unschedule(QueryCancel cancel) {
+        if (cancel != null && !cancel.future.cancel(false)) {
+            // Already running: let it finish before the connection goes back to the pool
+            try {
+                cancel.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // The cancel itself logs its failures
+            }
+        }
+    }
+
+    /**
+     * A statement we cancelled at the request deadline, like a query timeout, leaves the
+     * connection usable. Any other failure, even one that arrives after the deadline, does not.
+     */
+    private static void markBrokenUnlessCancelled(ConnectionPool.PooledConnection conn, SQLException e,
+                                                  QueryCancel cancel) {
+        if (cancel == null || !cancel.fired) {
+            markBrokenUnlessTimeout(conn, e);
+        }
+    }
+
+    private static void markBrokenUnlessTimeout(ConnectionPool.PooledConnection conn, SQLException e) {
+        // A cancelled statement leaves the connection usable
+        if (!(e instanceof SQLTimeoutException)) {
+            conn.markBroken();
+        }
+    }
+
+    /**
+     * Report query and pool timeouts caused by the request deadline as DeadlineExceededException.
+     */
+    private static Exception translate(SQLException e, Deadline deadline) {
+        if (!deadline.isUnbounded() && (e instanceof SQLTimeoutException || deadline.isExpired())) {
+            return new DeadlineExceededException("Database lookup exceeded the request deadline", e);
+        }
+        return e;
+    }
+
+    private static void commit(DbQueryEvent event, int keys, int rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.keys = keys;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    private static int inListSize(int count) {
+        int size = Integer.highestOneBit(count);
+        return size == count ? size : Math.min(size << 1, MAX_IN_LIST);
+    }
+
+    private static String inQuery(int size) {
+        StringBuilder sql = new StringBuilder(PO_SELECT.length() + 32 + size * 2);
+        sql.append(PO_SELECT).append("WHERE PO_NUMBER IN (");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private PurchaseOrder mapRow(ResultSet rs) throws SQLException {
+        PurchaseOrder po = new PurchaseOrder();
+        po.setPoNumber(rs.getString("PO_NUMBER"));
+        po.setVendorId(rs.getString("VENDOR_ID"));
+        po.setVendorName(rs.getString("VENDOR_NAME"));
+
+        java.sql.Date orderDate = rs.getDate("ORDER_DATE");
+        if (orderDate != null) {
+            po.setOrderDate(orderDate.toLocalDate());
+        }
+
+        java.sql.Date expectedDate = rs.getDate("EXPECTED_DATE");
+        if (expectedDate != null) {
+            po.setExpectedDate(expectedDate.toLocalDate());
+        }
+
+        po.setStatus(rs.getString("STATUS"));
+        po.setLocationCode(rs.getString("LOCATION_CODE"));
+        return po;
     }
 
     @Override
     public boolean isHealthy() {
-        try {
-            Connection conn = getConnection();
-            return conn != null && !conn.isClosed();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            return !conn.getConnection().isClosed();
         } catch (Exception e) {
             return false;
         }
     }
 
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = PurchaseOrderRepository.super.getMetrics();
+        metrics.put("db_pool_active", pool.getActiveCount());
+        metrics.put("db_pool_idle", pool.getIdleCount());
+        metrics.put("db_pool_acquire_timeouts", pool.getAcquireTimeouts());
+        return metrics;
+    }
+
     @Override
     public void close() {
-        if (connection != null) {
+        canceller.shutdownNow();
+        pool.close();
+        LOG.info("closed");
+    }
+
+    /**
+     * Statement.cancel() scheduled at a deadline; fired records that it ran, so the
+     * failure it causes is not taken for a broken connection.
+     */
+    private static final class QueryCancel implements Runnable {
+        private final PreparedStatement stmt;
+        private volatile boolean fired;
+        private ScheduledFuture<?> future;
+
+        private QueryCancel(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        @Override
+        public void run() {
+            fired = true;
             try {
-                connection.close();
-                System.out.println("[Db2Repository] Connection closed");
-            } catch (Exception e) {
-                System.err.println("[Db2Repository] Error closing connection: " + e.getMessage());
+                stmt.cancel();
+            } catch (SQLException e) {
+                LOG.debug("query_cancel_failed", "error", e.getMessage());
             }
         }
     }
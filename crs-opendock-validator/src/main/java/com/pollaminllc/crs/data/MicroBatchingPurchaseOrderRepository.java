@@ -0,0 +1,234 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.resilience.DeadlineExceededException;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups concurrent single-PO lookups into batched findByPoNumbers calls.
+ *
+ * A dispatcher thread collects pending lookups until batch.max_size are waiting
+ * or batch.window_ms has passed since the first one arrived, then runs one batch
+ * query on a small worker pool (batch.max_concurrent) and hands each caller its result.
+ * If the batch query fails, every caller in that batch receives the exception.
+ */
+public class MicroBatchingPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private static final Logger LOG = Logger.get("MicroBatchingRepository");
+
+    private final PurchaseOrderRepository delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<PendingLookup> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService batchExecutor;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedLookups = new LongAdder();
+    private final LongAdder abandonedLookups = new LongAdder();
+
+    public MicroBatchingPurchaseOrderRepository(PurchaseOrderRepository delegate, Config config) {
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getBatchWindowMs()));
+        this.maxBatchSize = Math.max(1, config.getBatchMaxSize());
+
+        AtomicInteger workerId = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(Math.max(1, config.getBatchMaxConcurrent()), r -> {
+            Thread t = new Thread(r, "po-batch-" + workerId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.dispatcher = new Thread(this::dispatchLoop, "po-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    /**
+     * The caller stops waiting at its deadline; the batch query runs under the
+     * latest deadline of the lookups it contains.
+     */
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        PendingLookup lookup = new PendingLookup(poNumber, deadline);
+        if (!running) {
+            throw new IllegalStateException("Repository is closed");
+        }
+        queue.add(lookup);
+
+        try {
+            if (deadline.isUnbounded()) {
+                return lookup.result.get();
+            }
+            return lookup.result.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            DeadlineExceededException exceeded = deadline.exceeded();
+            // Marks the lookup done so a batch that has not started yet leaves it out
+            lookup.result.completeExceptionally(exceeded);
+            throw exceeded;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Callers that already have a batch go straight to the delegate.
+     */
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return delegate.findByPoNumbers(poNumbers);
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        return delegate.findByPoNumbers(poNumbers, deadline);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                PendingLookup first = queue.take();
+                List<PendingLookup> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingLookup next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                batchExecutor.execute(() -> runBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("dispatch_failed", e);
+            }
+        }
+    }
+
+    /**
+     * Lookups whose caller has already given up, or whose deadline passed while they
+     * were queued, are dropped; if none are left the batch does not run.
+     */
+    private void runBatch(List<PendingLookup> batch) {
+        List<PendingLookup> live = new ArrayList<>(batch.size());
+        Set<String> keys = new LinkedHashSet<>();
+        Deadline deadline = null;
+        for (PendingLookup lookup : batch) {
+            if (lookup.result.isDone()) {
+                continue;
+            }
+            if (lookup.deadline.isExpired()) {
+                lookup.result.completeExceptionally(lookup.deadline.exceeded());
+                continue;
+            }
+            live.add(lookup);
+            keys.add(lookup.poNumber);
+            deadline = deadline == null ? lookup.deadline : Deadline.latest(deadline, lookup.deadline);
+        }
+        abandonedLookups.add(batch.size() - live.size());
+        if (live.isEmpty()) {
+            return;
+        }
+
+        batches.increment();
+        batchedLookups.add(live.size());
+
+        try {
+            Map<String, List<PurchaseOrder>> results = delegate.findByPoNumbers(keys, deadline);
+            for (PendingLookup lookup : live) {
+                List<PurchaseOrder> found = results.get(lookup.poNumber);
+                lookup.result.complete(found == null ? List.of() : found);
+            }
+        } catch (Exception | Error e) {
+            for (PendingLookup lookup : live) {
+                lookup.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        long batchCount = batches.sum();
+        long lookupCount = batchedLookups.sum();
+        metrics.put("batch_count", batchCount);
+        metrics.put("batch_lookups", lookupCount);
+        metrics.put("batch_abandoned_lookups", abandonedLookups.sum());
+        metrics.put("batch_queue_depth", queue.size());
+        metrics.put("batch_avg_size", batchCount == 0 ? 0.0 : (double) lookupCount / batchCount);
+        return metrics;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        batchExecutor.shutdown();
+
+        PendingLookup lookup;
+        while ((lookup = queue.poll()) != null) {
+            lookup.result.completeExceptionally(new IllegalStateException("Repository is closed"));
+        }
+        delegate.close();
+    }
+
+    private static final class PendingLookup {
+        final String poNumber;
+        final Deadline deadline;
+        final CompletableFuture<List<PurchaseOrder>> result = new CompletableFuture<>();
+
+        PendingLookup(String poNumber, Deadline deadline) {
+            this.poNumber = poNumber;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only index of POs by normalized PO number, used as the base of a
+ * SnapshotPurchaseOrderRepository snapshot.
+ *
+ * Implementations:
+ * - CompactPoStore: columnar and dictionary-encoded, built by a full load (default)
+ * - {@link #of(Map)}: a heap HashMap of PurchaseOrder beans (snapshot.format=heap)
+ * - SnapshotFile: a memory-mapped snapshot file, used until the first full load after startup
+ */
+interface PoIndex {
+
+    /**
+     * @return The POs for the key, or null if the key is not in the index
+     */
+    List<PurchaseOrder> get(String poNumber);
+
+    int size();
+
+    void forEach(BiConsumer<String, List<PurchaseOrder>> action);
+
+    static PoIndex of(Map<String, List<PurchaseOrder>> map) {
+        return new PoIndex() {
+            @Override
+            public List<PurchaseOrder> get(String poNumber) {
+                return map.get(poNumber);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public void forEach(BiConsumer<String, List<PurchaseOrder>> action) {
+                map.forEach(action);
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.pollaminllc.crs.data;
+
+/**
+ * Helpers for PO numbers used as lookup keys.
+ */
+public final class PoNumbers {
+
+    private PoNumbers() {
+    }
+
+    /**
+     * Normalize a PO number for use as a cache, in-flight, snapshot or filter key.
+     *
+     * Only surrounding whitespace is trimmed, which is what Db2Repository does before
+     * matching (PO_NUMBER is a blank-padded CHAR column). Case is significant, as in
+     * its PO_NUMBER = ? lookup, so a decorator never shares one PO's result with a PO
+     * number the database tells apart. Decorators use this for their own keys only and
+     * pass the caller's PO number on to the delegate.
+     */
+    public static String normalize(String poNumber) {
+        if (poNumber == null) {
+            return null;
+        }
+        return poNumber.trim();
+    }
+}
@@ -1,8 +1,12 @@
 package com.pollaminllc.crs.data;
 
 import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Repository interface for accessing Purchase Order data.
@@ -10,6 +14,14 @@ import java.util.List;
  * Implementations:
  * - StubRepository: Returns mock data for testing
  * - Db2Repository: Connects to Power Enterprise on IBM i (to be implemented)
+ *
+ * Decorators (wrap another repository):
+ * - BloomFilterPurchaseOrderRepository: Rejects PO numbers that are certainly unknown
+ * - CachingPurchaseOrderRepository: Read-through cache with negative caching
+ * - SnapshotPurchaseOrderRepository: In-memory index of open POs, refreshed from a SnapshotSource
+ * - CoalescingPurchaseOrderRepository: Shares concurrent lookups for the same PO
+ * - ResilientPurchaseOrderRepository: Circuit breaker and bulkhead, fails fast when the database is down
+ * - MicroBatchingPurchaseOrderRepository: Groups concurrent lookups into findByPoNumbers batches
  */
 public interface PurchaseOrderRepository {
 
@@ -22,6 +34,47 @@ public interface PurchaseOrderRepository {
      */
     List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception;
 
+    /**
+     * Find purchase orders by PO number, giving up when the deadline passes.
+     * The default implementation only checks the deadline before calling
+     * {@link #findByPoNumber(String)}; decorators and database-backed repositories
+     * override it to bound their waits by the remaining time.
+     *
+     * @throws com.pollaminllc.crs.resilience.DeadlineExceededException if the deadline passes first
+     */
+    default List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        deadline.check();
+        return findByPoNumber(poNumber);
+    }
+
+    /**
+     * Find purchase orders for several PO numbers at once.
+     * The default implementation calls {@link #findByPoNumber(String)} for each number;
+     * database-backed repositories override it with a single query.
+     *
+     * @param poNumbers The purchase order numbers to search for
+     * @return Map from each requested PO number to its matching purchase orders (empty list if none)
+     * @throws Exception if database connection fails
+     */
+    default Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            if (!results.containsKey(poNumber)) {
+                results.put(poNumber, findByPoNumber(poNumber));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Batch variant of {@link #findByPoNumber(String, Deadline)}.
+     */
+    default Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        deadline.check();
+        return findByPoNumbers(poNumbers);
+    }
+
     /**
      * Check if the repository connection is healthy.
      *
@@ -31,6 +84,16 @@ public interface PurchaseOrderRepository {
         return true;
     }
 
+    /**
+     * Operational counters for this repository and any repository it wraps.
+     * Decorators add their own entries to the map returned by their delegate.
+     *
+     * @return Mutable map of metric name to value, in insertion order
+     */
+    default Map<String, Number> getMetrics() {
+        return new LinkedHashMap<>();
+    }
+
     /**
      * Close any open connections.
      */
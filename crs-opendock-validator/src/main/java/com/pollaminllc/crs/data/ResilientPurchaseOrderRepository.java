@@ -0,0 +1,120 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Bulkhead;
+import com.pollaminllc.crs.resilience.CallNotPermittedException;
+import com.pollaminllc.crs.resilience.CircuitBreaker;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.Config;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guards the backing repository with a bulkhead and a circuit breaker.
+ *
+ * The bulkhead limits how many lookups can be waiting on the database at once
+ * (bulkhead.max_concurrent); the breaker stops calling it at all while it is failing
+ * or slow. Rejected calls fail fast with CallNotPermittedException, which
+ * ValidatorService turns into a 503.
+ */
+public class ResilientPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private final PurchaseOrderRepository delegate;
+    private final CircuitBreaker breaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientPurchaseOrderRepository(PurchaseOrderRepository delegate, Config config) {
+        this.delegate = delegate;
+        this.breaker = new CircuitBreaker(
+            "PO database",
+            config.getBreakerWindowSize(),
+            config.getBreakerMinimumCalls(),
+            config.getBreakerFailureRatePercent(),
+            config.getBreakerSlowCallMs(),
+            config.getBreakerSlowCallRatePercent(),
+            config.getBreakerOpenMs(),
+            config.getBreakerHalfOpenCalls()
+        );
+        this.bulkhead = new Bulkhead("PO database", config.getBulkheadMaxConcurrent(), config.getBulkheadMaxWaitMs());
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        return call(deadline, () -> delegate.findByPoNumber(poNumber, deadline));
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        return call(deadline, () -> delegate.findByPoNumbers(poNumbers, deadline));
+    }
+
+    private <T> T call(Deadline deadline, Lookup<T> lookup) throws Exception {
+        // Check the breaker first so an open circuit never waits on the bulkhead
+        breaker.acquirePermission();
+        try {
+            bulkhead.acquire(deadline.capMillis(bulkhead.getMaxWaitMillis()));
+        } catch (CallNotPermittedException | InterruptedException e) {
+            // The call never reached the database; count it as neither good nor bad
+            breaker.releasePermission();
+            if (e instanceof CallNotPermittedException && deadline.isExpired()) {
+                throw deadline.exceeded();
+            }
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = lookup.run();
+            failed = false;
+            return result;
+        } finally {
+            bulkhead.release();
+            breaker.onResult(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        metrics.put("breaker_state", breaker.getState().ordinal());
+        metrics.put("breaker_failure_rate", breaker.getFailureRate());
+        metrics.put("breaker_slow_call_rate", breaker.getSlowCallRate());
+        metrics.put("breaker_opened", breaker.getTimesOpened());
+        metrics.put("breaker_rejected", breaker.getRejectedCount());
+        metrics.put("bulkhead_active", bulkhead.getActiveCount());
+        metrics.put("bulkhead_rejected", bulkhead.getRejectedCount());
+        return metrics;
+    }
+
+    /**
+     * Unhealthy while the breaker is open, without asking the delegate.
+     */
+    @Override
+    public boolean isHealthy() {
+        return breaker.getState() != CircuitBreaker.State.OPEN && delegate.isHealthy();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @FunctionalInterface
+    private interface Lookup<T> {
+        T run() throws Exception;
+    }
+}
@@ -0,0 +1,338 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * On-disk PO snapshot, read through a memory mapping.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   48 bytes   magic, version, watermark, created-at millis, key count,
+ *                     key bytes length, record bytes length, CRC32 of everything after the header
+ * slots    16 bytes   per key, sorted by key: key offset, key length, record offset, record count
+ * keys                ASCII PO numbers, back to back
+ * records             per PO row: poNumber, vendorId, vendorName, status, locationCode
+ *                     (u16 length + UTF-8, 0xFFFF = null), orderDate, expectedDate (epoch day, MIN = null)
+ * </pre>
+ *
+ * Lookups binary-search the slots, comparing the key against the mapped bytes in
+ * place, and decode only the matching records. Keys are ASCII, like every PO number
+ * that passes the format check; other keys are skipped when writing.
+ *
+ * Files are written to a temporary file and renamed over the old one, so a reader
+ * never sees a partial file and an existing mapping keeps its (unlinked) file.
+ * The mapping is released when the SnapshotFile is garbage collected.
+ */
+final class SnapshotFile implements PoIndex {
+
+    private static final int MAGIC = 0x43525331; // "CRS1"
+    // 2: keys are case-sensitive (PoNumbers.normalize only trims); version 1 files had upper-cased keys
+    // 3: an open PO keeps its closed rows; earlier files held only the open ones
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 48;
+    private static final int SLOT_SIZE = 16;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final long watermark;
+    private final long createdAtMillis;
+    private final int keyCount;
+    private final int keysOffset;
+    private final int recordsOffset;
+
+    private SnapshotFile(ByteBuffer buffer, long watermark, long createdAtMillis, int keyCount, int keyBytes) {
+        this.buffer = buffer;
+        this.watermark = watermark;
+        this.createdAtMillis = createdAtMillis;
+        this.keyCount = keyCount;
+        this.keysOffset = HEADER_SIZE + keyCount * SLOT_SIZE;
+        this.recordsOffset = keysOffset + keyBytes;
+    }
+
+    /**
+     * Map a snapshot file and check its header and checksum.
+     *
+     * @throws IOException if the file is missing, truncated, from another version or corrupt
+     */
+    static SnapshotFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot file has invalid size " + size + ": " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " snapshot file: " + path);
+        }
+        long watermark = buffer.getLong(8);
+        long createdAtMillis = buffer.getLong(16);
+        int keyCount = buffer.getInt(24);
+        int keyBytes = buffer.getInt(28);
+        int recordBytes = buffer.getInt(32);
+        long expectedCrc = buffer.getLong(36);
+
+        long expectedSize = HEADER_SIZE + (long) keyCount * SLOT_SIZE + keyBytes + recordBytes;
+        if (keyCount < 0 || keyBytes < 0 || recordBytes < 0 || expectedSize != buffer.capacity()) {
+            throw new IOException("Snapshot file is truncated: " + path);
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        crc.update(body);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("Snapshot file checksum mismatch: " + path);
+        }
+
+        return new SnapshotFile(buffer, watermark, createdAtMillis, keyCount, keyBytes);
+    }
+
+    /**
+     * Write every entry of {@code index} to {@code path}, replacing it atomically.
+     *
+     * Records are encoded straight from CompactPoStore columns, each distinct field value
+     * once, so writing does not build a PurchaseOrder per row. Any other index is first
+     * copied into a CompactPoStore.
+     *
+     * @return Number of POs written
+     */
+    static int write(Path path, PoIndex index, long watermark) throws IOException {
+        CompactPoStore store = index instanceof CompactPoStore
+            ? (CompactPoStore) index : CompactPoStore.copyOf(index);
+
+        byte[][] values = new byte[store.dictionarySize()][];
+        for (int ref = 0; ref < values.length; ref++) {
+            values[ref] = store.dictionaryValue(ref).getBytes(StandardCharsets.UTF_8);
+            checkLength(values[ref].length);
+        }
+
+        // The store holds no empty entries and only ASCII keys
+        int[] order = store.entriesInKeyOrder();
+        int keyBytes = 0;
+        long recordBytes = 0;
+        for (int entry : order) {
+            checkLength(store.keyLength(entry));
+            keyBytes += store.keyLength(entry);
+            recordBytes += recordsSize(store, entry, values);
+        }
+        long total = HEADER_SIZE + (long) order.length * SLOT_SIZE + keyBytes + recordBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large for one mapping: " + total + " bytes");
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(tmp)) {
+            file.write(new byte[HEADER_SIZE]);
+            // Buffer before the checksum so the CRC is updated in blocks, not per byte
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+
+            int keyOffset = 0;
+            int recordOffset = 0;
+            for (int entry : order) {
+                out.writeInt(keyOffset);
+                out.writeInt(store.keyLength(entry));
+                out.writeInt(recordOffset);
+                out.writeInt(store.rowEnd(entry) - store.rowStart(entry));
+                keyOffset += store.keyLength(entry);
+                recordOffset += recordsSize(store, entry, values);
+            }
+            for (int entry : order) {
+                store.writeKey(entry, out);
+            }
+            for (int entry : order) {
+                for (int row = store.rowStart(entry); row < store.rowEnd(entry); row++) {
+                    // The PO number of every row is the key, as CompactPoStore returns it
+                    out.writeShort(store.keyLength(entry));
+                    store.writeKey(entry, out);
+                    writeValue(out, store.vendorIdRef(row), values);
+                    writeValue(out, store.vendorNameRef(row), values);
+                    writeValue(out, store.statusRef(row), values);
+                    writeValue(out, store.locationRef(row), values);
+                    out.writeInt(store.orderEpochDay(row));
+                    out.writeInt(store.expectedEpochDay(row));
+                }
+            }
+            out.flush();
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(tmp.toFile(), "rw")) {
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeLong(watermark);
+            file.writeLong(System.currentTimeMillis());
+            file.writeInt(order.length);
+            file.writeInt(keyBytes);
+            file.writeInt((int) recordBytes);
+            file.writeLong(crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return order.length;
+    }
+
+    long getWatermark() {
+        return watermark;
+    }
+
+    long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    @Override
+    public List<PurchaseOrder> get(String poNumber) {
+        if (poNumber == null || !isAscii(poNumber)) {
+            return null;
+        }
+        int lo = 0;
+        int hi = keyCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int slot = HEADER_SIZE + mid * SLOT_SIZE;
+            int cmp = compareKey(buffer.getInt(slot), buffer.getInt(slot + 4), poNumber);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return readRecords(buffer.getInt(slot + 8), buffer.getInt(slot + 12));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return keyCount;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, List<PurchaseOrder>> action) {
+        for (int i = 0; i < keyCount; i++) {
+            int slot = HEADER_SIZE + i * SLOT_SIZE;
+            int keyOffset = keysOffset + buffer.getInt(slot);
+            byte[] key = new byte[buffer.getInt(slot + 4)];
+            for (int j = 0; j < key.length; j++) {
+                key[j] = buffer.get(keyOffset + j);
+            }
+            action.accept(new String(key, StandardCharsets.US_ASCII),
+                readRecords(buffer.getInt(slot + 8), buffer.getInt(slot + 12)));
+        }
+    }
+
+    /**
+     * Compare a stored key with an ASCII key without copying the stored bytes.
+     */
+    private int compareKey(int offset, int length, String key) {
+        int start = keysOffset + offset;
+        int n = Math.min(length, key.length());
+        for (int i = 0; i < n; i++) {
+            int diff = (buffer.get(start + i) & 0xFF) - key.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length();
+    }
+
+    private List<PurchaseOrder> readRecords(int offset, int count) {
+        // Absolute reads only, so concurrent lookups can share the buffer
+        int[] position = {recordsOffset + offset};
+        List<PurchaseOrder> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PurchaseOrder po = new PurchaseOrder(readString(position));
+            po.setVendorId(readString(position));
+            po.setVendorName(readString(position));
+            po.setStatus(readString(position));
+            po.setLocationCode(readString(position));
+            po.setOrderDate(readDate(position));
+            po.setExpectedDate(readDate(position));
+            orders.add(po);
+        }
+        return List.copyOf(orders);
+    }
+
+    private String readString(int[] position) {
+        int length = buffer.getShort(position[0]) & 0xFFFF;
+        position[0] += 2;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position[0] + i);
+        }
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private LocalDate readDate(int[] position) {
+        int epochDay = buffer.getInt(position[0]);
+        position[0] += 4;
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static int recordsSize(CompactPoStore store, int entry, byte[][] values) {
+        int size = 0;
+        for (int row = store.rowStart(entry); row < store.rowEnd(entry); row++) {
+            size += 2 + store.keyLength(entry)
+                + valueSize(store.vendorIdRef(row), values) + valueSize(store.vendorNameRef(row), values)
+                + valueSize(store.statusRef(row), values) + valueSize(store.locationRef(row), values) + 8;
+        }
+        return size;
+    }
+
+    private static int valueSize(int ref, byte[][] values) {
+        return ref < 0 ? 2 : 2 + values[ref].length;
+    }
+
+    private static void writeValue(DataOutputStream out, int ref, byte[][] values) throws IOException {
+        if (ref < 0) {
+            out.writeShort(NULL_STRING);
+            return;
+        }
+        out.writeShort(values[ref].length);
+        out.write(values[ref]);
+    }
+
+    private static void checkLength(int length) throws IOException {
+        if (length >= NULL_STRING) {
+            throw new IOException("Field too long for snapshot file: " + length + " bytes");
+        }
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,460 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory snapshot of every open PO in front of another PurchaseOrderRepository.
+ * A PO is open when at least one of its rows is; the snapshot then holds all of its
+ * rows, closed ones included, so it answers with what the delegate would return.
+ *
+ * - At startup all open POs are loaded from a SnapshotSource into a hash index,
+ *   one query per source range, snapshot.load_threads ranges at a time.
+ * - Every snapshot.refresh_interval_seconds only the POs changed since the last
+ *   watermark are fetched (re-reading snapshot.change_overlap_ms before it, so rows
+ *   committed late with an older timestamp are not missed) and applied.
+ * - Every snapshot.full_reload_minutes the index is rebuilt from scratch.
+ *
+ * With snapshot.format=compact (the default) the index is a columnar CompactPoStore
+ * of roughly 50 bytes per PO; snapshot.format=heap keeps PurchaseOrder beans in a HashMap.
+ *
+ * Each load or refresh publishes a new immutable Snapshot through one volatile
+ * field, so lookups never lock and always see a complete version. Only the
+ * refresh thread writes that field.
+ *
+ * With snapshot.file set, the snapshot is also written to that file (see SnapshotFile)
+ * after each full load and every snapshot.file_write_minutes. At startup a file no
+ * older than snapshot.file_max_age_minutes is memory-mapped and served at once; the
+ * first refresh then applies the changes made since it was written, and the full
+ * reload replaces it when a load of its age would be due.
+ *
+ * Lookups found in the snapshot are answered from memory. Anything else (closed or
+ * unknown POs, or every lookup before the first load or once the snapshot is older
+ * than snapshot.max_age_seconds) goes to the delegate, unless snapshot.authoritative
+ * is set, in which case POs missing from a current snapshot are reported as not found.
+ */
+public class SnapshotPurchaseOrderRepository implements PurchaseOrderRepository {
+
+    private static final Logger LOG = Logger.get("SnapshotRepository");
+
+    // Changed POs are kept in a small overlay and folded into the base once it grows past this
+    private static final int MIN_COMPACT_SIZE = 1024;
+
+    private final PurchaseOrderRepository delegate;
+    private final SnapshotSource source;
+    private final int partitions;
+    private final int loadThreads;
+    private final long fullReloadNanos;
+    private final long overlapMillis;
+    private final long maxAgeNanos;
+    private final boolean authoritative;
+    private final boolean compactFormat;
+    private final Path file;
+    private final long fileWriteNanos;
+    private final long fileMaxAgeMillis;
+
+    private final ScheduledExecutorService scheduler;
+    private volatile Snapshot current;
+    // Refresh thread only
+    private long lastFileWriteNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder fileWrites = new LongAdder();
+
+    public SnapshotPurchaseOrderRepository(PurchaseOrderRepository delegate, SnapshotSource source, Config config) {
+        this.delegate = delegate;
+        this.source = source;
+        this.partitions = Math.max(1, config.getSnapshotPartitions());
+        this.loadThreads = Math.max(1, config.getSnapshotLoadThreads());
+        this.fullReloadNanos = TimeUnit.MINUTES.toNanos(Math.max(1, config.getSnapshotFullReloadMinutes()));
+        this.overlapMillis = Math.max(0, config.getSnapshotChangeOverlapMs());
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getSnapshotMaxAgeSeconds()));
+        this.authoritative = config.isSnapshotAuthoritative();
+        this.compactFormat = !"heap".equalsIgnoreCase(config.getSnapshotFormat());
+        String fileName = config.getSnapshotFile();
+        this.file = fileName == null || fileName.isEmpty() ? null : Paths.get(fileName);
+        this.fileWriteNanos = TimeUnit.MINUTES.toNanos(Math.max(1, config.getSnapshotFileWriteMinutes()));
+        this.fileMaxAgeMillis = TimeUnit.MINUTES.toMillis(Math.max(0, config.getSnapshotFileMaxAgeMinutes()));
+
+        if (file != null) {
+            openFile();
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "po-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        // The first run does the initial load; lookups use the delegate until it finishes
+        long intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getSnapshotRefreshIntervalSeconds()));
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
+        return findByPoNumber(poNumber, Deadline.none());
+    }
+
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        String key = PoNumbers.normalize(poNumber);
+        Snapshot snapshot = usableSnapshot();
+        if (snapshot != null) {
+            List<PurchaseOrder> found = snapshot.get(key);
+            if (found != null && !found.isEmpty()) {
+                hits.increment();
+                return found;
+            }
+            if (authoritative) {
+                absent.increment();
+                return List.of();
+            }
+        }
+        fallbacks.increment();
+        return delegate.findByPoNumber(poNumber, deadline);
+    }
+
+    /**
+     * Answer what the snapshot has and look up the rest from the delegate in one batch.
+     */
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        Map<String, List<PurchaseOrder>> byKey = new LinkedHashMap<>();
+        // Key -> the first caller PO number with that key, which is what the delegate is asked for
+        Map<String, String> missing = new LinkedHashMap<>();
+        Snapshot snapshot = usableSnapshot();
+
+        for (String poNumber : poNumbers) {
+            String key = PoNumbers.normalize(poNumber);
+            if (byKey.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            List<PurchaseOrder> found = snapshot == null ? null : snapshot.get(key);
+            if (found != null && !found.isEmpty()) {
+                hits.increment();
+                byKey.put(key, found);
+            } else if (snapshot != null && authoritative) {
+                absent.increment();
+                byKey.put(key, List.of());
+            } else {
+                fallbacks.increment();
+                missing.put(key, poNumber);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, List<PurchaseOrder>> fetched = delegate.findByPoNumbers(missing.values(), deadline);
+            for (Map.Entry<String, String> miss : missing.entrySet()) {
+                byKey.put(miss.getKey(), fetched.get(miss.getValue()));
+            }
+        }
+
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            List<PurchaseOrder> found = byKey.get(PoNumbers.normalize(poNumber));
+            results.put(poNumber, found == null ? List.of() : found);
+        }
+        return results;
+    }
+
+    /**
+     * The current snapshot, or null if there is none yet or it has not been
+     * refreshed within snapshot.max_age_seconds.
+     */
+    private Snapshot usableSnapshot() {
+        Snapshot snapshot = current;
+        if (snapshot == null || System.nanoTime() - snapshot.refreshedAtNanos > maxAgeNanos) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Serve a recent snapshot file until the database has been read. Its load time is
+     * backdated to when it was written so the full reload comes due on schedule.
+     */
+    private void openFile() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            SnapshotFile mapped = SnapshotFile.open(file);
+            long ageMillis = Math.max(0, System.currentTimeMillis() - mapped.getCreatedAtMillis());
+            if (ageMillis > fileMaxAgeMillis) {
+                LOG.info("snapshot_file_ignored", "path", file, "ageMinutes", TimeUnit.MILLISECONDS.toMinutes(ageMillis));
+                return;
+            }
+            long now = System.nanoTime();
+            current = new Snapshot(mapped, Map.of(), mapped.getWatermark(),
+                now - TimeUnit.MILLISECONDS.toNanos(ageMillis), now);
+            lastFileWriteNanos = now;
+            LOG.info("snapshot_file_opened", "path", file, "pos", mapped.size(),
+                "ageSeconds", TimeUnit.MILLISECONDS.toSeconds(ageMillis), "ms", TimeUnit.NANOSECONDS.toMillis(now - start));
+        } catch (IOException e) {
+            LOG.warn("snapshot_file_unreadable", "path", file, "error", e.getMessage());
+        }
+    }
+
+    /**
+     * Scheduled task: full load when there is no snapshot or it is due for a rebuild,
+     * otherwise apply changes since the last watermark. Failures keep the previous snapshot.
+     */
+    private void refresh() {
+        Snapshot snapshot = current;
+        boolean full = snapshot == null || System.nanoTime() - snapshot.loadedAtNanos > fullReloadNanos;
+        try {
+            if (full) {
+                fullLoad();
+            } else {
+                applyChanges(snapshot);
+            }
+        } catch (Exception e) {
+            refreshFailures.increment();
+            LOG.warn("snapshot_refresh_failed", "full", full, "error", e.getMessage());
+            return;
+        }
+
+        if (file != null && (full || System.nanoTime() - lastFileWriteNanos > fileWriteNanos)) {
+            writeFile(current);
+        }
+    }
+
+    private void writeFile(Snapshot snapshot) {
+        long start = System.nanoTime();
+        try {
+            int written = SnapshotFile.write(file, snapshot, snapshot.watermark);
+            fileWrites.increment();
+            LOG.info("snapshot_file_written", "path", file, "pos", written,
+                "ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            LOG.warn("snapshot_file_write_failed", "path", file, "error", e.getMessage());
+        }
+        // Failed writes are retried at the next interval, not on every refresh
+        lastFileWriteNanos = System.nanoTime();
+    }
+
+    private void fullLoad() throws Exception {
+        long start = System.nanoTime();
+        // Read before loading: changes made during the load are replayed by the next refresh
+        long watermark = source.currentWatermark();
+        List<SnapshotSource.Range> ranges = source.partition(partitions);
+
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(Math.max(1, Math.min(loadThreads, ranges.size())), r -> {
+            Thread t = new Thread(r, "po-snapshot-load-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Rows go straight into the store as each range arrives, so only one range's beans are live at a time
+        CompactPoStore.Builder compact = compactFormat ? new CompactPoStore.Builder() : null;
+        Map<String, List<PurchaseOrder>> heap = compactFormat ? null : new HashMap<>();
+        int rows = 0;
+        try {
+            List<Future<List<PurchaseOrder>>> parts = new ArrayList<>(ranges.size());
+            for (SnapshotSource.Range range : ranges) {
+                parts.add(loaders.submit(() -> source.loadOpenRange(range)));
+            }
+            for (Future<List<PurchaseOrder>> part : parts) {
+                // Every row of each open PO, not only its open rows (see SnapshotSource.loadOpenRange)
+                for (PurchaseOrder po : await(part)) {
+                    String key = PoNumbers.normalize(po.getPoNumber());
+                    if (compact != null) {
+                        compact.add(key, po);
+                    } else {
+                        heap.computeIfAbsent(key, k -> new ArrayList<>(1)).add(po);
+                    }
+                    rows++;
+                }
+            }
+        } finally {
+            loaders.shutdownNow();
+        }
+        PoIndex base;
+        if (compact != null) {
+            base = compact.build();
+        } else {
+            heap.replaceAll((key, orders) -> List.copyOf(orders));
+            base = PoIndex.of(heap);
+        }
+
+        long now = System.nanoTime();
+        current = new Snapshot(base, Map.of(), watermark, now, now);
+        loads.increment();
+        LOG.info("snapshot_loaded", "pos", base.size(), "rows", rows, "ranges", ranges.size(),
+            "ms", TimeUnit.NANOSECONDS.toMillis(now - start));
+    }
+
+    private void applyChanges(Snapshot snapshot) throws Exception {
+        SnapshotSource.Changes changes = source.loadChangesSince(snapshot.watermark - overlapMillis);
+        long now = System.nanoTime();
+        if (changes.byPoNumber.isEmpty()) {
+            current = new Snapshot(snapshot.base, snapshot.overlay, changes.watermark, snapshot.loadedAtNanos, now);
+            return;
+        }
+
+        Map<String, List<PurchaseOrder>> overlay = new HashMap<>(snapshot.overlay);
+        for (Map.Entry<String, List<PurchaseOrder>> change : changes.byPoNumber.entrySet()) {
+            boolean open = PurchaseOrder.anyOpen(change.getValue());
+            if (!open && snapshot.base.get(change.getKey()) == null) {
+                overlay.remove(change.getKey());
+            } else {
+                // An empty list hides a base entry for a PO that is no longer open
+                overlay.put(change.getKey(), open ? List.copyOf(change.getValue()) : List.of());
+            }
+        }
+
+        PoIndex base = snapshot.base;
+        if (overlay.size() > Math.max(MIN_COMPACT_SIZE, base.size() / 8)) {
+            base = merge(new Snapshot(base, overlay, 0, 0, 0));
+            overlay = Map.of();
+        }
+
+        current = new Snapshot(base, overlay, changes.watermark, snapshot.loadedAtNanos, now);
+        LOG.info("snapshot_refreshed", "changed", changes.byPoNumber.size(), "overlay", overlay.size());
+    }
+
+    /**
+     * Fold a snapshot's overlay into a new base in the configured format.
+     */
+    private PoIndex merge(Snapshot snapshot) {
+        if (compactFormat) {
+            return CompactPoStore.copyOf(snapshot);
+        }
+        Map<String, List<PurchaseOrder>> merged = new HashMap<>(snapshot.size() * 4 / 3 + 1);
+        snapshot.forEach(merged::put);
+        return PoIndex.of(merged);
+    }
+
+    private static List<PurchaseOrder> await(Future<List<PurchaseOrder>> part) throws Exception {
+        try {
+            return part.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy();
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = delegate.getMetrics();
+        Snapshot snapshot = current;
+        metrics.put("snapshot_pos", snapshot == null ? 0 : snapshot.base.size());
+        metrics.put("snapshot_overlay", snapshot == null ? 0 : snapshot.overlay.size());
+        metrics.put("snapshot_age_ms", snapshot == null
+            ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - snapshot.refreshedAtNanos));
+        metrics.put("snapshot_hits", hits.sum());
+        metrics.put("snapshot_fallbacks", fallbacks.sum());
+        metrics.put("snapshot_absent", absent.sum());
+        metrics.put("snapshot_loads", loads.sum());
+        metrics.put("snapshot_refresh_failures", refreshFailures.sum());
+        if (snapshot != null && snapshot.base instanceof CompactPoStore) {
+            metrics.put("snapshot_bytes", ((CompactPoStore) snapshot.base).approximateBytes());
+            metrics.put("snapshot_dictionary_size", ((CompactPoStore) snapshot.base).dictionarySize());
+        }
+        metrics.put("snapshot_from_file", snapshot != null && snapshot.base instanceof SnapshotFile ? 1 : 0);
+        metrics.put("snapshot_file_writes", fileWrites.sum());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        delegate.close();
+    }
+
+    /**
+     * One published version of the index. Never modified after construction.
+     */
+    private static final class Snapshot implements PoIndex {
+        // Open POs from the last full load, or from the snapshot file
+        final PoIndex base;
+        // POs changed since: all their rows, or an empty list if no longer open
+        final Map<String, List<PurchaseOrder>> overlay;
+        final long watermark;
+        final long loadedAtNanos;
+        final long refreshedAtNanos;
+
+        Snapshot(PoIndex base, Map<String, List<PurchaseOrder>> overlay,
+                 long watermark, long loadedAtNanos, long refreshedAtNanos) {
+            this.base = base;
+            this.overlay = overlay;
+            this.watermark = watermark;
+            this.loadedAtNanos = loadedAtNanos;
+            this.refreshedAtNanos = refreshedAtNanos;
+        }
+
+        @Override
+        public List<PurchaseOrder> get(String key) {
+            if (key == null) {
+                return null;
+            }
+            List<PurchaseOrder> changed = overlay.get(key);
+            return changed != null ? changed : base.get(key);
+        }
+
+        // Approximate: overlay keys may also be in the base
+        @Override
+        public int size() {
+            return base.size() + overlay.size();
+        }
+
+        /**
+         * Visit the open POs as of this version: base entries not overridden, then the overlay.
+         */
+        @Override
+        public void forEach(BiConsumer<String, List<PurchaseOrder>> action) {
+            base.forEach((key, orders) -> {
+                if (!overlay.containsKey(key)) {
+                    action.accept(key, orders);
+                }
+            });
+            overlay.forEach((key, orders) -> {
+                if (!orders.isEmpty()) {
+                    action.accept(key, orders);
+                }
+            });
+        }
+    }
+}
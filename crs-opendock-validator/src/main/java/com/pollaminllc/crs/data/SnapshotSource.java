@@ -0,0 +1,85 @@
+package com.pollaminllc.crs.data;
+
+import com.pollaminllc.crs.model.PurchaseOrder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk reads used to build and refresh the in-memory PO snapshot
+ * (see SnapshotPurchaseOrderRepository) and the known-PO filter
+ * (see BloomFilterPurchaseOrderRepository).
+ *
+ * Implemented by backing repositories alongside PurchaseOrderRepository:
+ * - Db2Repository: relative-record-number range scans and a change-timestamp query
+ * - StubRepository: its predefined mock POs
+ *
+ * Watermarks are opaque longs ordered by time of change (for DB2, the
+ * change timestamp in epoch milliseconds).
+ */
+public interface SnapshotSource {
+
+    /**
+     * The source's current watermark. Read it before a full load so that changes
+     * made while the load runs are picked up by the next {@link #loadChangesSince(long)}.
+     */
+    long currentWatermark() throws Exception;
+
+    /**
+     * Split the table into about {@code count} disjoint ranges that together cover
+     * every row, so a full load can run one query per range in parallel.
+     */
+    List<Range> partition(int count) throws Exception;
+
+    /**
+     * Load the rows in one range returned by {@link #partition(int)} that belong to an
+     * open PO: every row, open or not, of each PO number with at least one open row
+     * anywhere in the table, so a PO is answered with the same rows as a direct lookup.
+     */
+    List<PurchaseOrder> loadOpenRange(Range range) throws Exception;
+
+    /**
+     * Load every PO number, open or not, in one range returned by {@link #partition(int)}.
+     * Used to build the known-PO filter (see BloomFilterPurchaseOrderRepository).
+     */
+    List<String> loadPoNumbers(Range range) throws Exception;
+
+    /**
+     * Load every row, open or not, of each PO that changed after {@code watermark}.
+     * All rows of a changed PO are returned so multi-row POs can be replaced whole.
+     */
+    Changes loadChangesSince(long watermark) throws Exception;
+
+    /**
+     * Half-open range [from, to) of a source-defined row position (for DB2, the relative record number).
+     */
+    final class Range {
+        public final long from;
+        public final long to;
+
+        public Range(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + from + ", " + to + ")";
+        }
+    }
+
+    /**
+     * Result of {@link #loadChangesSince(long)}.
+     */
+    final class Changes {
+        /** All rows of each changed PO, keyed by normalized PO number. */
+        public final Map<String, List<PurchaseOrder>> byPoNumber;
+        /** Watermark to pass to the next call. */
+        public final long watermark;
+
+        public Changes(Map<String, List<PurchaseOrder>> byPoNumber, long watermark) {
+            this.byPoNumber = byPoNumber;
+            this.watermark = watermark;
+        }
+    }
+}
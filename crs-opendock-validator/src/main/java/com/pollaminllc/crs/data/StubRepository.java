@@ -1,12 +1,18 @@
 package com.pollaminllc.crs.data;
 
 import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.resilience.Deadline;
+import com.pollaminllc.crs.resilience.DeadlineExceededException;
+import com.pollaminllc.crs.util.Logger;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Stub implementation of PurchaseOrderRepository for testing.
@@ -18,12 +24,27 @@ import java.util.Map;
  * - "MULTI": Returns multiple records (409 conflict)
  * - "ERROR": Throws exception (503 service unavailable)
  * - Any other alphanumeric: Returns a generic valid PO
+ *
+ * As a SnapshotSource it serves the predefined POs (not the generic ones) and never changes,
+ * so with bloom.enabled only the predefined POs are known and everything else is 404.
  */
-public class StubRepository implements PurchaseOrderRepository {
+public class StubRepository implements PurchaseOrderRepository, SnapshotSource {
+
+    private static final Logger LOG = Logger.get("StubRepository");
 
     private final Map<String, List<PurchaseOrder>> mockData;
+    private final long latencyMillis;
 
     public StubRepository() {
+        this(0);
+    }
+
+    /**
+     * Stub that sleeps for the given time on every lookup (and once per batch),
+     * to mimic database round-trips in load tests.
+     */
+    public StubRepository(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
         mockData = new HashMap<>();
         initializeMockData();
     }
@@ -58,8 +79,17 @@ public class StubRepository implements PurchaseOrderRepository {
 
     @Override
     public List<PurchaseOrder> findByPoNumber(String poNumber) throws Exception {
-        System.out.println("[StubRepository] Looking up PO: " + poNumber);
+        return findByPoNumber(poNumber, Deadline.none());
+    }
 
+    @Override
+    public List<PurchaseOrder> findByPoNumber(String poNumber, Deadline deadline) throws Exception {
+        LOG.debug("lookup", "poNumber", poNumber);
+        simulateLatency(deadline);
+        return lookup(poNumber);
+    }
+
+    private List<PurchaseOrder> lookup(String poNumber) throws Exception {
         // Special case: simulate database error
         if ("ERROR".equalsIgnoreCase(poNumber)) {
             throw new Exception("Simulated database connection error");
@@ -68,7 +98,7 @@ public class StubRepository implements PurchaseOrderRepository {
         // Check predefined mock data
         if (mockData.containsKey(poNumber)) {
             List<PurchaseOrder> result = mockData.get(poNumber);
-            System.out.println("[StubRepository] Found " + result.size() + " record(s)");
+            LOG.debug("lookup_result", "poNumber", poNumber, "records", result.size());
             return result;
         }
 
@@ -76,15 +106,108 @@ public class StubRepository implements PurchaseOrderRepository {
         // This allows testing with arbitrary PO numbers
         if (poNumber != null && !poNumber.isEmpty() && !poNumber.equalsIgnoreCase("NOTFOUND")) {
             PurchaseOrder po = createMockPO(poNumber, "Generic Vendor", "Open");
-            System.out.println("[StubRepository] Created generic mock for: " + poNumber);
+            LOG.debug("lookup_result", "poNumber", poNumber, "records", 1, "generic", true);
             return List.of(po);
         }
 
         // Not found
-        System.out.println("[StubRepository] No records found for: " + poNumber);
+        LOG.debug("lookup_result", "poNumber", poNumber, "records", 0);
         return new ArrayList<>();
     }
 
+    @Override
+    public long currentWatermark() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Ranges are positions in the sorted list of predefined PO numbers.
+     */
+    @Override
+    public List<SnapshotSource.Range> partition(int count) {
+        int size = mockData.size();
+        int step = Math.max(1, (size + Math.max(1, count) - 1) / Math.max(1, count));
+        List<SnapshotSource.Range> ranges = new ArrayList<>();
+        for (int from = 0; from < size; from += step) {
+            ranges.add(new SnapshotSource.Range(from, Math.min(from + step, size)));
+        }
+        return ranges;
+    }
+
+    @Override
+    public List<PurchaseOrder> loadOpenRange(SnapshotSource.Range range) throws Exception {
+        simulateLatency(Deadline.none());
+        List<String> keys = new ArrayList<>(new TreeSet<>(mockData.keySet()));
+        List<PurchaseOrder> results = new ArrayList<>();
+        for (int i = (int) range.from; i < range.to && i < keys.size(); i++) {
+            List<PurchaseOrder> orders = mockData.get(keys.get(i));
+            if (PurchaseOrder.anyOpen(orders)) {
+                results.addAll(orders);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> loadPoNumbers(SnapshotSource.Range range) {
+        List<String> keys = new ArrayList<>(new TreeSet<>(mockData.keySet()));
+        List<String> results = new ArrayList<>();
+        for (int i = (int) range.from; i < range.to && i < keys.size(); i++) {
+            if (!mockData.get(keys.get(i)).isEmpty()) {
+                results.add(keys.get(i));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public SnapshotSource.Changes loadChangesSince(long watermark) {
+        return new SnapshotSource.Changes(new LinkedHashMap<>(), currentWatermark());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers) throws Exception {
+        return findByPoNumbers(poNumbers, Deadline.none());
+    }
+
+    @Override
+    public Map<String, List<PurchaseOrder>> findByPoNumbers(Collection<String> poNumbers, Deadline deadline)
+            throws Exception {
+        LOG.debug("batch_lookup", "count", poNumbers.size());
+        simulateLatency(deadline);
+
+        // A real batch is one query, so one bad key fails the whole batch
+        for (String poNumber : poNumbers) {
+            if ("ERROR".equalsIgnoreCase(poNumber)) {
+                throw new Exception("Simulated database connection error");
+            }
+        }
+
+        Map<String, List<PurchaseOrder>> results = new LinkedHashMap<>();
+        for (String poNumber : poNumbers) {
+            if (!results.containsKey(poNumber)) {
+                results.put(poNumber, lookup(poNumber));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sleep for the configured latency, or fail like a query timeout if the deadline comes first.
+     */
+    private void simulateLatency(Deadline deadline) throws InterruptedException, DeadlineExceededException {
+        if (latencyMillis <= 0) {
+            deadline.check();
+            return;
+        }
+        long remaining = deadline.remainingMillis();
+        if (latencyMillis > remaining) {
+            Thread.sleep(remaining);
+            throw new DeadlineExceededException("Simulated query timeout after " + remaining + " ms");
+        }
+        Thread.sleep(latencyMillis);
+    }
+
     @Override
     public boolean isHealthy() {
         return true;
@@ -92,6 +215,6 @@ public class StubRepository implements PurchaseOrderRepository {
 
     @Override
     public void close() {
-        System.out.println("[StubRepository] Closed (no-op for stub)");
+        LOG.info("closed");
     }
 }
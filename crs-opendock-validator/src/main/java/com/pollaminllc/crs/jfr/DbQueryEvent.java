@@ -0,0 +1,34 @@
+package com.pollaminllc.crs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Db2Repository query, including the wait for a pooled connection.
+ */
+@Name("com.pollaminllc.crs.DbQuery")
+@Label("DB Query")
+@Category({"CRS Validator", "Repository"})
+@Description("PO query against DB2, including connection pool wait")
+@StackTrace(false)
+public class DbQueryEvent extends Event {
+
+    @Label("PO Numbers")
+    @Description("Keys in the query (1 for single lookups)")
+    public int keys;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Pool Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long poolWait;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,56 @@
+package com.pollaminllc.crs.jfr;
+
+import com.pollaminllc.crs.util.Config;
+import com.pollaminllc.crs.util.Logger;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Optional continuous JFR recording started at startup (jfr.continuous=true).
+ *
+ * Keeps a rolling window of jfr.max_age_minutes / jfr.max_size_mb in the JFR repository
+ * and writes it to jfr.dump_file when the JVM shuts down. The custom events in this
+ * package are always registered; they cost almost nothing while no recording runs.
+ */
+public final class FlightRecording {
+
+    private static final Logger LOG = Logger.get("FlightRecording");
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Start the continuous recording if enabled, otherwise return null.
+     * Failures are logged and also return null so startup is never blocked by JFR.
+     */
+    public static Recording start(Config config) {
+        if (!config.isJfrContinuous()) {
+            return null;
+        }
+
+        try {
+            Path dumpFile = Paths.get(config.getJfrDumpFile());
+            Recording recording = new Recording(Configuration.getConfiguration(config.getJfrSettings()));
+            recording.setName("crs-validator");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(config.getJfrMaxAgeMinutes()));
+            recording.setMaxSize(config.getJfrMaxSizeMb() * 1024L * 1024L);
+            // Dumped by JFR's own shutdown hook. Dumping from Main's hook instead races with
+            // that hook, which deletes the chunk files while other hooks are still running.
+            recording.setDestination(dumpFile);
+            recording.setDumpOnExit(true);
+            recording.start();
+
+            LOG.info("jfr_started", "settings", config.getJfrSettings(), "dumpFile", dumpFile.toAbsolutePath());
+            return recording;
+        } catch (Exception e) {
+            LOG.warn("jfr_start_failed", "settings", config.getJfrSettings(), "error", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.pollaminllc.crs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A findByPoNumber call made by ValidatorService, through the whole repository chain
+ * (cache, coalescing, batching, database).
+ */
+@Name("com.pollaminllc.crs.PoLookup")
+@Label("PO Lookup")
+@Category({"CRS Validator", "Repository"})
+@Description("Purchase order lookup through the repository chain")
+@StackTrace(false)
+public class PoLookupEvent extends Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Ref Number")
+    public String refNumber;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Error")
+    public String error;
+}
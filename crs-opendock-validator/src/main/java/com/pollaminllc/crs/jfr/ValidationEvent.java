@@ -0,0 +1,33 @@
+package com.pollaminllc.crs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One ValidatorService.validate call.
+ */
+@Name("com.pollaminllc.crs.Validation")
+@Label("Validation")
+@Category({"CRS Validator", "Service"})
+@Description("PO validation of a parsed webhook request")
+@StackTrace(false)
+public class ValidationEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Ref Number")
+    public String refNumber;
+
+    @Label("Step")
+    @Description("Last validation step reached (1-7): 1 request fields, 2 cancellation bypass, "
+        + "3 ref number, 4 format, 5 lookup, 6 result count, 7 business rules")
+    public int step;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,33 @@
+package com.pollaminllc.crs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One /validate exchange in ValidatorHandler, from the first byte handled to the response sent.
+ * Parse time shows up as the gap before the nested Validation event.
+ */
+@Name("com.pollaminllc.crs.ValidationRequest")
+@Label("Validation Request")
+@Category({"CRS Validator", "HTTP"})
+@Description("A /validate webhook exchange")
+@StackTrace(false)
+public class ValidationRequestEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Ref Number")
+    public String refNumber;
+
+    @Label("Status")
+    @Description("HTTP status sent, -1 if none")
+    public int status;
+}
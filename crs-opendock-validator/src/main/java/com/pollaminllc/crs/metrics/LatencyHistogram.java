@@ -0,0 +1,75 @@
+package com.pollaminllc.crs.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram exported in Prometheus histogram format.
+ *
+ * Recording finds the bucket with a short scan over precomputed nanosecond bounds
+ * and increments a LongAdder, so it never allocates and threads do not contend
+ * on a shared counter. Bucket counts are made cumulative only when rendered.
+ */
+public final class LatencyHistogram {
+
+    /** Bucket upper bounds in seconds, as written in the le label. */
+    private static final double[] BOUNDS_SECONDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+    private static final String[] BOUND_LABELS = new String[BOUNDS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * 1_000_000_000L);
+            BOUND_LABELS[i] = BigDecimal.valueOf(BOUNDS_SECONDS[i]).toPlainString();
+        }
+    }
+
+    // One slot per bound plus the +Inf overflow bucket; counts are per bucket, not cumulative
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    public long count() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Write the _bucket, _sum and _count series. {@code labels} is either empty or a
+     * comma-terminated label list such as {@code stage="lookup",}.
+     */
+    void writeTo(PrometheusWriter out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.sample(name + "_bucket", labels + "le=\"" + BOUND_LABELS[i] + "\"", cumulative);
+        }
+        cumulative += buckets[BOUNDS_NANOS.length].sum();
+        out.sample(name + "_bucket", labels + "le=\"+Inf\"", cumulative);
+        out.sample(name + "_sum", trimComma(labels), sumNanos.sum() / 1e9);
+        out.sample(name + "_count", trimComma(labels), cumulative);
+    }
+
+    private static String trimComma(String labels) {
+        return labels.endsWith(",") ? labels.substring(0, labels.length() - 1) : labels;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pollaminllc.crs.metrics;
+
+import com.pollaminllc.crs.data.PurchaseOrderRepository;
+import com.pollaminllc.crs.util.Logger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToIntFunction;
+
+/**
+ * Serves GET /metrics in Prometheus text format: request and stage metrics,
+ * queue depth of the fast (HTTP) and I/O lane executors, repository decorator
+ * metrics and logger state.
+ */
+public class MetricsHandler implements HttpHandler {
+
+    private final ValidatorMetrics metrics;
+    private final PurchaseOrderRepository repository;
+    private final Executor executor;
+    private final Executor ioExecutor;
+
+    public MetricsHandler(ValidatorMetrics metrics, PurchaseOrderRepository repository, Executor executor) {
+        this(metrics, repository, executor, null);
+    }
+
+    /**
+     * @param ioExecutor The I/O lane, or null when lookups run on the HTTP executor
+     */
+    public MetricsHandler(ValidatorMetrics metrics, PurchaseOrderRepository repository, Executor executor,
+                          Executor ioExecutor) {
+        this.metrics = metrics;
+        this.repository = repository;
+        this.executor = executor;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = render().toBytes();
+        exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    PrometheusWriter render() {
+        PrometheusWriter out = new PrometheusWriter();
+        metrics.writeTo(out);
+
+        // Virtual-thread executors have no queue to report
+        out.header("crs_executor_queue_depth", "gauge", "Tasks waiting for a worker thread, by lane");
+        writeLane(out, "crs_executor_queue_depth", executor, "fast", pool -> pool.getQueue().size());
+        writeLane(out, "crs_executor_queue_depth", ioExecutor, "io", pool -> pool.getQueue().size());
+        out.header("crs_executor_active_threads", "gauge", "Worker threads currently busy, by lane");
+        writeLane(out, "crs_executor_active_threads", executor, "fast", ThreadPoolExecutor::getActiveCount);
+        writeLane(out, "crs_executor_active_threads", ioExecutor, "io", ThreadPoolExecutor::getActiveCount);
+        out.header("crs_executor_pool_size", "gauge", "Worker threads started, by lane");
+        writeLane(out, "crs_executor_pool_size", executor, "fast", ThreadPoolExecutor::getPoolSize);
+        writeLane(out, "crs_executor_pool_size", ioExecutor, "io", ThreadPoolExecutor::getPoolSize);
+
+        for (Map.Entry<String, Number> entry : repository.getMetrics().entrySet()) {
+            out.gauge("crs_repository_" + PrometheusWriter.sanitize(entry.getKey()),
+                "Repository metric " + entry.getKey(), entry.getValue());
+        }
+
+        out.gauge("crs_log_pending", "Log records waiting to be written", Logger.getPendingCount());
+        out.gauge("crs_log_dropped", "Log records dropped because the buffer was full", Logger.getDroppedCount());
+        return out;
+    }
+
+    private static void writeLane(PrometheusWriter out, String name, Executor executor, String lane,
+                                  ToIntFunction<ThreadPoolExecutor> value) {
+        if (executor instanceof ThreadPoolExecutor) {
+            out.sample(name, "lane=\"" + lane + "\"", value.applyAsInt((ThreadPoolExecutor) executor));
+        }
+    }
+}
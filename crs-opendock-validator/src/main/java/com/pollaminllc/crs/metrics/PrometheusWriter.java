@@ -0,0 +1,85 @@
+package com.pollaminllc.crs.metrics;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal writer for the Prometheus text exposition format (version 0.0.4).
+ */
+public final class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    public PrometheusWriter header(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusWriter sample(String name, String labels, long value) {
+        startSample(name, labels);
+        out.append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusWriter sample(String name, String labels, double value) {
+        startSample(name, labels);
+        out.append(formatDouble(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Write a gauge with no labels, choosing integer or float rendering from the value type.
+     */
+    public PrometheusWriter gauge(String name, String help, Number value) {
+        header(name, "gauge", help);
+        if (value instanceof Double || value instanceof Float) {
+            return sample(name, "", value.doubleValue());
+        }
+        return sample(name, "", value.longValue());
+    }
+
+    private void startSample(String name, String labels) {
+        out.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+    }
+
+    /**
+     * Turn an arbitrary key (e.g. a repository metric name) into a valid metric name fragment.
+     */
+    public static String sanitize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            sb.append(valid ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    public byte[] toBytes() {
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,314 @@
+package com.pollaminllc.crs.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and latency histograms for the /validate path.
+ *
+ * All recording methods are allocation-free and built on LongAdder, so they are
+ * cheap enough to leave on under peak load. Values are read when /metrics is scraped.
+ */
+public final class ValidatorMetrics {
+
+    /**
+     * Timed steps of a validation request.
+     */
+    public enum Stage {
+        AUTH("auth"),
+        PARSE("parse"),
+        FORMAT_CHECK("format_check"),
+        LOOKUP("lookup"),
+        RULES("rules");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * Where a request was answered: on the HTTP thread that read it, or on the I/O lane
+     * after a PO lookup.
+     */
+    public enum Lane {
+        FAST("fast"),
+        IO("io");
+
+        private final String label;
+
+        Lane(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * How delta evaluation answered an update: from the prior decision, by re-running
+     * the rules against the remembered PO, or by falling back to a lookup.
+     */
+    public enum Delta {
+        REUSED("reused"),
+        RULES("rules"),
+        LOOKUP("lookup");
+
+        private final String label;
+
+        Delta(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * Counters for one business rule, handed to the RuleEngine when it is compiled.
+     */
+    public static final class RuleStats {
+        private final String name;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private RuleStats(String name) {
+            this.name = name;
+        }
+
+        public void record(long elapsedNanos, boolean rejected) {
+            evaluations.increment();
+            nanos.add(elapsedNanos);
+            if (rejected) {
+                rejections.increment();
+            }
+        }
+    }
+
+    // Statuses the handler and ValidationResult produce; anything else is counted as "other"
+    private static final int[] STATUSES = {200, 400, 401, 404, 405, 409, 413, 500, 503};
+
+    private final LongAdder[] requestsByStatus = new LongAdder[STATUSES.length + 1];
+    private final LatencyHistogram requestDuration = new LatencyHistogram();
+    private final LatencyHistogram[] stageDurations = new LatencyHistogram[Stage.values().length];
+    private final LongAdder repositoryErrors = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+    private final LongAdder failOpen = new LongAdder();
+    private final LongAdder[] requestsByLane = new LongAdder[Lane.values().length];
+    private final LongAdder ioLaneRejected = new LongAdder();
+    private final LatencyHistogram ioQueueWait = new LatencyHistogram();
+    private final LongAdder replaysStored = new LongAdder();
+    private final LongAdder replaysInFlight = new LongAdder();
+    private final LongAdder[] deltaOutcomes = new LongAdder[Delta.values().length];
+    private final List<RuleStats> ruleStats = new CopyOnWriteArrayList<>();
+    private final LongAdder multiRefRequests = new LongAdder();
+    private final LongAdder multiRefPos = new LongAdder();
+    private final LongAdder batchRequests = new LongAdder();
+    private final LongAdder batchItems = new LongAdder();
+    private final LongAdder batchLookups = new LongAdder();
+    private final LongAdder batchLookupKeys = new LongAdder();
+
+    public ValidatorMetrics() {
+        for (int i = 0; i < requestsByStatus.length; i++) {
+            requestsByStatus[i] = new LongAdder();
+        }
+        for (int i = 0; i < stageDurations.length; i++) {
+            stageDurations[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < requestsByLane.length; i++) {
+            requestsByLane[i] = new LongAdder();
+        }
+        for (int i = 0; i < deltaOutcomes.length; i++) {
+            deltaOutcomes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Count a finished request and record its total time.
+     */
+    public void recordRequest(int status, long nanos) {
+        requestsByStatus[statusIndex(status)].increment();
+        requestDuration.record(nanos);
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stageDurations[stage.ordinal()].record(nanos);
+    }
+
+    public void recordRepositoryError() {
+        repositoryErrors.increment();
+    }
+
+    /**
+     * Count a request whose time budget ran out, and whether it was let through (fail-open).
+     */
+    public void recordDeadlineExceeded(boolean allowed) {
+        deadlineExceeded.increment();
+        if (allowed) {
+            failOpen.increment();
+        }
+    }
+
+    public void recordLane(Lane lane) {
+        requestsByLane[lane.ordinal()].increment();
+    }
+
+    /**
+     * Time a request waited in the I/O lane queue before a thread picked it up.
+     */
+    public void recordIoQueueWait(long nanos) {
+        ioQueueWait.record(nanos);
+    }
+
+    public void recordIoLaneRejected() {
+        ioLaneRejected.increment();
+    }
+
+    /**
+     * Count a duplicate webhook answered from the idempotency cache: from a stored
+     * response, or by waiting for the original still in flight.
+     */
+    public void recordReplay(boolean stored) {
+        (stored ? replaysStored : replaysInFlight).increment();
+    }
+
+    public void recordDelta(Delta outcome) {
+        deltaOutcomes[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Count a request whose refNumber carried several POs, and how many.
+     */
+    public void recordMultiRef(int poCount) {
+        multiRefRequests.increment();
+        multiRefPos.add(poCount);
+    }
+
+    /**
+     * Count a /validate/batch request and how many items it carried.
+     */
+    public void recordBatch(int items) {
+        batchRequests.increment();
+        batchItems.add(items);
+    }
+
+    /**
+     * Count one bulk lookup made for a batch, and the distinct PO numbers it asked for.
+     */
+    public void recordBatchLookup(int keys) {
+        batchLookups.increment();
+        batchLookupKeys.add(keys);
+    }
+
+    /**
+     * Counters for a rule, created when the rule chain is compiled.
+     */
+    public RuleStats ruleStats(String name) {
+        RuleStats stats = new RuleStats(name);
+        ruleStats.add(stats);
+        return stats;
+    }
+
+    public long getRequestCount(int status) {
+        return requestsByStatus[statusIndex(status)].sum();
+    }
+
+    public long getRepositoryErrors() {
+        return repositoryErrors.sum();
+    }
+
+    private static int statusIndex(int status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        return STATUSES.length;
+    }
+
+    public void writeTo(PrometheusWriter out) {
+        out.header("crs_requests_total", "counter", "Validation requests by HTTP status");
+        for (int i = 0; i < STATUSES.length; i++) {
+            out.sample("crs_requests_total", "status=\"" + STATUSES[i] + "\"", requestsByStatus[i].sum());
+        }
+        out.sample("crs_requests_total", "status=\"other\"", requestsByStatus[STATUSES.length].sum());
+
+        out.header("crs_request_duration_seconds", "histogram", "Total time to handle a validation request");
+        requestDuration.writeTo(out, "crs_request_duration_seconds", "");
+
+        out.header("crs_stage_duration_seconds", "histogram", "Time spent in each validation stage");
+        for (Stage stage : Stage.values()) {
+            stageDurations[stage.ordinal()].writeTo(
+                out, "crs_stage_duration_seconds", "stage=\"" + stage.label() + "\",");
+        }
+
+        out.header("crs_repository_errors_total", "counter", "PO lookups that failed with an exception");
+        out.sample("crs_repository_errors_total", "", repositoryErrors.sum());
+
+        out.header("crs_deadline_exceeded_total", "counter", "Requests whose deadline ran out before the PO lookup finished");
+        out.sample("crs_deadline_exceeded_total", "", deadlineExceeded.sum());
+
+        out.header("crs_fail_open_total", "counter", "Requests allowed without PO verification after the deadline ran out");
+        out.sample("crs_fail_open_total", "", failOpen.sum());
+
+        out.header("crs_lane_requests_total", "counter", "Validation requests by the lane that answered them");
+        for (Lane lane : Lane.values()) {
+            out.sample("crs_lane_requests_total", "lane=\"" + lane.label() + "\"", requestsByLane[lane.ordinal()].sum());
+        }
+
+        out.header("crs_io_lane_rejected_total", "counter", "Lookups refused with a 503 because the I/O lane queue was full");
+        out.sample("crs_io_lane_rejected_total", "", ioLaneRejected.sum());
+
+        out.header("crs_io_queue_wait_seconds", "histogram", "Time lookups waited for an I/O lane thread");
+        ioQueueWait.writeTo(out, "crs_io_queue_wait_seconds", "");
+
+        out.header("crs_idempotent_replays_total", "counter", "Duplicate webhooks answered with the response to the original");
+        out.sample("crs_idempotent_replays_total", "source=\"stored\"", replaysStored.sum());
+        out.sample("crs_idempotent_replays_total", "source=\"in_flight\"", replaysInFlight.sum());
+
+        out.header("crs_delta_evaluations_total", "counter", "Updates by how delta evaluation answered them");
+        for (Delta outcome : Delta.values()) {
+            out.sample("crs_delta_evaluations_total", "outcome=\"" + outcome.label() + "\"",
+                deltaOutcomes[outcome.ordinal()].sum());
+        }
+
+        out.header("crs_multi_ref_requests_total", "counter", "Requests whose refNumber carried several POs");
+        out.sample("crs_multi_ref_requests_total", "", multiRefRequests.sum());
+        out.header("crs_multi_ref_pos_total", "counter", "POs looked up for multi-PO requests");
+        out.sample("crs_multi_ref_pos_total", "", multiRefPos.sum());
+
+        out.header("crs_validate_batch_requests_total", "counter", "Requests to /validate/batch");
+        out.sample("crs_validate_batch_requests_total", "", batchRequests.sum());
+        out.header("crs_validate_batch_items_total", "counter", "Appointments validated through /validate/batch");
+        out.sample("crs_validate_batch_items_total", "", batchItems.sum());
+        out.header("crs_validate_batch_lookups_total", "counter", "Bulk PO lookups made for /validate/batch");
+        out.sample("crs_validate_batch_lookups_total", "", batchLookups.sum());
+        out.header("crs_validate_batch_lookup_keys_total", "counter", "Distinct PO numbers asked for by batch lookups");
+        out.sample("crs_validate_batch_lookup_keys_total", "", batchLookupKeys.sum());
+
+        if (!ruleStats.isEmpty()) {
+            // Rules take nanoseconds, so time is a running total rather than a histogram
+            out.header("crs_rule_evaluations_total", "counter", "Business rule evaluations by rule");
+            for (RuleStats stats : ruleStats) {
+                out.sample("crs_rule_evaluations_total", "rule=\"" + stats.name + "\"", stats.evaluations.sum());
+            }
+            out.header("crs_rule_rejections_total", "counter", "Appointments rejected by each business rule");
+            for (RuleStats stats : ruleStats) {
+                out.sample("crs_rule_rejections_total", "rule=\"" + stats.name + "\"", stats.rejections.sum());
+            }
+            out.header("crs_rule_duration_seconds_total", "counter", "Time spent evaluating each business rule");
+            for (RuleStats stats : ruleStats) {
+                out.sample("crs_rule_duration_seconds_total", "rule=\"" + stats.name + "\"", stats.nanos.sum() / 1e9);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.pollaminllc.crs.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Which appointment fields an update changes, comparing existingAppointment
+ * with appointmentFields.
+ *
+ * A field that is missing from appointmentFields counts as unchanged for the
+ * reference number, since WebhookRequest.getRefNumber() then falls back to the
+ * existing one. Reference numbers are compared trimmed but case-sensitively,
+ * like PO lookup keys (PoNumbers.normalize).
+ */
+public final class AppointmentDelta {
+
+    /**
+     * Appointment fields an update can change.
+     */
+    public enum Field {
+        REF_NUMBER,
+        START,
+        END,
+        LOAD_TYPE,
+        STATUS,
+        DOCK,
+        WAREHOUSE
+    }
+
+    private final Set<Field> changed;
+
+    private AppointmentDelta(Set<Field> changed) {
+        this.changed = Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Compare an update with the appointment it replaces.
+     *
+     * @return The delta, or null if the request is not an update carrying both versions
+     */
+    public static AppointmentDelta of(WebhookRequest request) {
+        if (request == null || !request.isUpdate()) {
+            return null;
+        }
+        AppointmentFields before = request.getExistingAppointment();
+        AppointmentFields after = request.getAppointmentFields();
+        if (before == null || after == null) {
+            return null;
+        }
+        return compare(before, after, request.getRefNumber());
+    }
+
+    /**
+     * Compare two versions of appointment fields directly.
+     */
+    public static AppointmentDelta between(AppointmentFields before, AppointmentFields after) {
+        return compare(before, after, after.getRefNumber());
+    }
+
+    private static AppointmentDelta compare(AppointmentFields before, AppointmentFields after, String afterRef) {
+        EnumSet<Field> changed = EnumSet.noneOf(Field.class);
+        if (!sameRef(before.getRefNumber(), afterRef)) {
+            changed.add(Field.REF_NUMBER);
+        }
+        if (!Objects.equals(before.getStart(), after.getStart())) {
+            changed.add(Field.START);
+        }
+        if (!Objects.equals(before.getEnd(), after.getEnd())) {
+            changed.add(Field.END);
+        }
+        if (!Objects.equals(before.getLoadTypeId(), after.getLoadTypeId())) {
+            changed.add(Field.LOAD_TYPE);
+        }
+        if (!Objects.equals(before.getStatus(), after.getStatus())) {
+            changed.add(Field.STATUS);
+        }
+        if (!Objects.equals(before.getDockId(), after.getDockId())) {
+            changed.add(Field.DOCK);
+        }
+        if (!Objects.equals(before.getWarehouseId(), after.getWarehouseId())) {
+            changed.add(Field.WAREHOUSE);
+        }
+        return new AppointmentDelta(changed);
+    }
+
+    public boolean isChanged(Field field) {
+        return changed.contains(field);
+    }
+
+    public boolean isChangedAny(Set<Field> fields) {
+        for (Field field : fields) {
+            if (changed.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<Field> getChangedFields() {
+        return changed;
+    }
+
+    private static boolean sameRef(String before, String after) {
+        if (before == null || after == null) {
+            return before == after;
+        }
+        return before.trim().equals(after.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentDelta" + changed;
+    }
+}
@@ -1,6 +1,7 @@
 package com.pollaminllc.crs.model;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Model representing a Purchase Order from Power Enterprise.
@@ -88,6 +89,18 @@ public class PurchaseOrder {
         return lower.equals("open") || lower.equals("active") || lower.equals("pending");
     }
 
+    /**
+     * Check if any of a PO number's rows is open.
+     */
+    public static boolean anyOpen(List<PurchaseOrder> orders) {
+        for (PurchaseOrder po : orders) {
+            if (po.isOpen()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return String.format(
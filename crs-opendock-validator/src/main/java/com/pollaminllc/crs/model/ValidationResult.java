@@ -9,11 +9,17 @@ public class ValidationResult {
     private final boolean success;
     private final int httpStatus;
     private final String message;
+    private final boolean failOpen;
 
     private ValidationResult(boolean success, int httpStatus, String message) {
+        this(success, httpStatus, message, false);
+    }
+
+    private ValidationResult(boolean success, int httpStatus, String message, boolean failOpen) {
         this.success = success;
         this.httpStatus = httpStatus;
         this.message = message;
+        this.failOpen = failOpen;
     }
 
     /**
@@ -23,6 +29,15 @@ public class ValidationResult {
         return new ValidationResult(true, 200, message);
     }
 
+    /**
+     * Create a success result (HTTP 200) for an appointment that was allowed without
+     * completing PO verification (deadline.exhausted_policy=fail_open).
+     * It is flagged so the handler can mark the response and it can be audited later.
+     */
+    public static ValidationResult failOpen(String message) {
+        return new ValidationResult(true, 200, message, true);
+    }
+
     /**
      * Create a bad request error (HTTP 400).
      */
@@ -70,33 +85,56 @@ public class ValidationResult {
         return message;
     }
 
+    /**
+     * True if this success was granted without verifying the PO.
+     */
+    public boolean isFailOpen() {
+        return failOpen;
+    }
+
     /**
      * Convert to JSON response format.
      * Success: { "data": "message" }
      * Error:   { "errorMessage": "message" }
+     *
+     * The HTTP handler encodes responses with WebhookJsonCodec instead; this is kept
+     * for callers that want the JSON as a String.
      */
     public String toJson() {
-        if (success) {
-            return String.format("{\"data\":\"%s\"}", escapeJson(message));
-        } else {
-            return String.format("{\"errorMessage\":\"%s\"}", escapeJson(message));
-        }
+        String text = message == null ? "" : message;
+        StringBuilder json = new StringBuilder(text.length() + 20);
+        json.append(success ? "{\"data\":\"" : "{\"errorMessage\":\"");
+        appendEscaped(json, text);
+        return json.append("\"}").toString();
     }
 
-    private String escapeJson(String s) {
-        if (s == null) return "";
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    /**
+     * Escape special characters for a JSON string in a single pass.
+     */
+    private static void appendEscaped(StringBuilder json, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': json.append("\\\\"); break;
+                case '"':  json.append("\\\""); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
     }
 
     @Override
     public String toString() {
         return String.format(
-            "ValidationResult{success=%s, status=%d, message='%s'}",
-            success, httpStatus, message
+            "ValidationResult{success=%s, status=%d, failOpen=%s, message='%s'}",
+            success, httpStatus, failOpen, message
         );
     }
 }
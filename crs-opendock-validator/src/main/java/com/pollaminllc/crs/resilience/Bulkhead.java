@@ -0,0 +1,68 @@
+package com.pollaminllc.crs.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of concurrent calls into a dependency.
+ *
+ * Callers wait at most maxWaitMillis for a slot. Keeping the limit below the
+ * HTTP worker count means a stalled dependency cannot occupy every worker, so
+ * requests that need no lookup (cancellations, bad input) are still served.
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    /**
+     * Take a slot, waiting up to the configured time. Every successful call must be paired with {@link #release()}.
+     *
+     * @throws CallNotPermittedException if no slot frees up in time
+     */
+    public void acquire() throws CallNotPermittedException, InterruptedException {
+        acquire(maxWaitMillis);
+    }
+
+    /**
+     * Take a slot, waiting at most waitMillis (e.g. the configured wait capped by a request deadline).
+     */
+    public void acquire(long waitMillis) throws CallNotPermittedException, InterruptedException {
+        boolean acquired = waitMillis <= 0
+            ? permits.tryAcquire()
+            : permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new CallNotPermittedException(String.format(
+                "%s is at its limit of %d concurrent calls", name, maxConcurrent
+            ));
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
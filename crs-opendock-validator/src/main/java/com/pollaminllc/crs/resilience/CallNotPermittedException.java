@@ -0,0 +1,14 @@
+package com.pollaminllc.crs.resilience;
+
+/**
+ * Thrown instead of calling a dependency when the circuit breaker is open
+ * or the bulkhead has no free slot.
+ */
+public class CallNotPermittedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
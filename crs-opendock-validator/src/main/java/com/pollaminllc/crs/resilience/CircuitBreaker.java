@@ -0,0 +1,197 @@
+package com.pollaminllc.crs.resilience;
+
+import com.pollaminllc.crs.util.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * - CLOSED: calls pass through. The outcomes of the last windowSize calls are kept;
+ *   once at least minimumCalls are recorded and the failure rate or slow-call rate
+ *   reaches its threshold, the breaker opens.
+ * - OPEN: calls are rejected without touching the dependency. After openMillis the
+ *   next call is let through as a trial and the breaker goes HALF_OPEN.
+ * - HALF_OPEN: up to halfOpenCalls trial calls run. Any failure or slow call reopens
+ *   the breaker; halfOpenCalls good calls in a row close it again.
+ *
+ * State changes are rare and each call does little work, so one monitor guards everything.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger LOG = Logger.get("CircuitBreaker");
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final int slowCallRatePercent;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRatePercent,
+                          long slowCallMillis, int slowCallRatePercent, long openMillis, int halfOpenCalls) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRatePercent = failureRatePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowCallRatePercent = slowCallRatePercent;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Ask to make a call. On success the caller must report the outcome with {@link #onResult}.
+     *
+     * @throws CallNotPermittedException if the breaker is open or out of half-open trial calls
+     */
+    public synchronized void acquirePermission() throws CallNotPermittedException {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return;
+        }
+
+        rejected.increment();
+        throw new CallNotPermittedException(name + " is unavailable (circuit breaker " + state + ")");
+    }
+
+    /**
+     * Give back a permission for a call that was never made, without recording an outcome.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     */
+    public synchronized void onResult(long durationNanos, boolean failed) {
+        boolean slow = durationNanos >= slowCallNanos;
+
+        switch (state) {
+            case CLOSED:
+                record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (recorded >= minimumCalls
+                        && (failures * 100 >= failureRatePercent * recorded
+                            || slowCalls * 100 >= slowCallRatePercent * recorded)) {
+                    LOG.warn("breaker_opened", "name", name, "calls", recorded,
+                        "failures", failures, "slowCalls", slowCalls);
+                    open();
+                }
+                break;
+
+            case HALF_OPEN:
+                if (failed || slow) {
+                    LOG.warn("breaker_reopened", "name", name, "failed", failed, "slow", slow);
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                    resetWindow();
+                }
+                break;
+
+            default:
+                // Late result from a call started before the breaker opened
+                break;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (recorded == windowSize) {
+            byte evicted = outcomes[next];
+            if ((evicted & FAILED) != 0) {
+                failures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % windowSize;
+        if ((outcome & FAILED) != 0) {
+            failures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls++;
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        timesOpened.increment();
+        transitionTo(State.OPEN);
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            LOG.info("breaker_state", "name", name, "from", state, "to", newState);
+            state = newState;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0.0 : (double) slowCalls / recorded;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTimesOpened() {
+        return timesOpened.sum();
+    }
+}
@@ -0,0 +1,104 @@
+package com.pollaminllc.crs.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a request must be answered.
+ *
+ * Created when ValidatorHandler starts on a request (deadline.budget_ms) and passed
+ * down through ValidatorService into the repository chain, where it bounds lock
+ * and queue waits, pool acquisition and JDBC query timeouts.
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(0, 0, true);
+
+    private final long expiresAtNanos;
+    private final long budgetMillis;
+    private final boolean unbounded;
+
+    private Deadline(long expiresAtNanos, long budgetMillis, boolean unbounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.budgetMillis = budgetMillis;
+        this.unbounded = unbounded;
+    }
+
+    /**
+     * A deadline that never expires.
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * A deadline budgetMillis from now; zero or less means no deadline.
+     */
+    public static Deadline after(long budgetMillis) {
+        return startingAt(System.nanoTime(), budgetMillis);
+    }
+
+    /**
+     * A deadline budgetMillis after a System.nanoTime() timestamp; zero or less means no deadline.
+     */
+    public static Deadline startingAt(long startNanos, long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return NONE;
+        }
+        return new Deadline(startNanos + TimeUnit.MILLISECONDS.toNanos(budgetMillis), budgetMillis, false);
+    }
+
+    /**
+     * The later of two deadlines, e.g. for a batch shared by several requests.
+     */
+    public static Deadline latest(Deadline a, Deadline b) {
+        if (a.unbounded || b.unbounded) {
+            return NONE;
+        }
+        return a.expiresAtNanos - b.expiresAtNanos >= 0 ? a : b;
+    }
+
+    public boolean isUnbounded() {
+        return unbounded;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public long remainingNanos() {
+        return unbounded ? Long.MAX_VALUE : Math.max(0, expiresAtNanos - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return unbounded ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return !unbounded && expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Limit a timeout to the time that is left.
+     */
+    public long capMillis(long timeoutMillis) {
+        return Math.min(timeoutMillis, remainingMillis());
+    }
+
+    /**
+     * @throws DeadlineExceededException if no time is left
+     */
+    public void check() throws DeadlineExceededException {
+        if (isExpired()) {
+            throw exceeded();
+        }
+    }
+
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException("Request deadline of " + budgetMillis + " ms exceeded");
+    }
+
+    @Override
+    public String toString() {
+        return unbounded ? "Deadline{none}" : "Deadline{remainingMs=" + remainingMillis() + "}";
+    }
+}
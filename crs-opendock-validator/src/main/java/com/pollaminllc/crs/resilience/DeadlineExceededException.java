@@ -0,0 +1,17 @@
+package com.pollaminllc.crs.resilience;
+
+/**
+ * Thrown when a request's time budget runs out before a lookup completes.
+ */
+public class DeadlineExceededException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,129 @@
+package com.pollaminllc.crs.rules;
+
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * "appointment_date": the appointment date (the date part of start) must fall within
+ * [expectedDate - min_days_before_expected, expectedDate + max_days_after_expected].
+ * A negative max_days_after_expected leaves the window open-ended. Appointments
+ * without a parseable start and POs without an expected date pass.
+ *
+ * The date is read straight from the yyyy-MM-dd prefix of start, without a LocalDate.
+ */
+final class AppointmentDateRule implements BusinessRule {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final int minDaysBefore;
+    private final int maxDaysAfter;
+
+    AppointmentDateRule(int minDaysBefore, int maxDaysAfter) {
+        this.minDaysBefore = Math.max(0, minDaysBefore);
+        this.maxDaysAfter = maxDaysAfter;
+    }
+
+    @Override
+    public String name() {
+        return "appointment_date";
+    }
+
+    @Override
+    public Set<AppointmentDelta.Field> inputs() {
+        return EnumSet.of(AppointmentDelta.Field.START);
+    }
+
+    @Override
+    public ValidationResult check(WebhookRequest request, PurchaseOrder po) {
+        LocalDate expected = po.getExpectedDate();
+        if (expected == null) {
+            return null;
+        }
+        long appointmentDay = epochDay(request.getAppointmentFields().getStart());
+        if (appointmentDay == NO_DATE) {
+            return null;
+        }
+
+        long expectedDay = expected.toEpochDay();
+        if (appointmentDay < expectedDay - minDaysBefore) {
+            return ValidationResult.badRequest(
+                String.format(
+                    "Appointment must be scheduled on or after %s for PO Number: %s " +
+                    "(expected delivery date %s). Select a later date and try again.",
+                    LocalDate.ofEpochDay(expectedDay - minDaysBefore),
+                    po.getPoNumber(),
+                    expected
+                )
+            );
+        }
+        if (maxDaysAfter >= 0 && appointmentDay > expectedDay + maxDaysAfter) {
+            return ValidationResult.badRequest(
+                String.format(
+                    "Appointment must be scheduled on or before %s for PO Number: %s " +
+                    "(expected delivery date %s). Select an earlier date and try again.",
+                    LocalDate.ofEpochDay(expectedDay + maxDaysAfter),
+                    po.getPoNumber(),
+                    expected
+                )
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Epoch day of an ISO date or date-time ("2024-03-15" or "2024-03-15T10:00:00Z").
+     *
+     * @return The epoch day, or NO_DATE if the value does not start with a valid date
+     */
+    static long epochDay(String value) {
+        if (value == null || value.length() < 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return NO_DATE;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return NO_DATE;
+        }
+        // Days from civil date (proleptic Gregorian), as in LocalDate.toEpochDay
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(String value, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
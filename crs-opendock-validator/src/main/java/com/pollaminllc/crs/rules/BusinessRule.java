@@ -0,0 +1,30 @@
+package com.pollaminllc.crs.rules;
+
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+
+import java.util.Set;
+
+/**
+ * One compiled business rule. Built once from config by {@link RuleEngine#compile};
+ * {@link #check} must not allocate unless it rejects.
+ */
+public interface BusinessRule {
+
+    /**
+     * Name from rules.chain, used as the metrics label.
+     */
+    String name();
+
+    /**
+     * Appointment fields the rule reads, so delta evaluation knows when to re-run it.
+     */
+    Set<AppointmentDelta.Field> inputs();
+
+    /**
+     * @return null if the appointment passes, otherwise the rejection
+     */
+    ValidationResult check(WebhookRequest request, PurchaseOrder po);
+}
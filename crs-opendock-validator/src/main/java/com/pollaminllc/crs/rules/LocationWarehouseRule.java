@@ -0,0 +1,82 @@
+package com.pollaminllc.crs.rules;
+
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * "location_warehouse": the appointment's OpenDock warehouseId must be one of the
+ * warehouses mapped to the PO's locationCode in rules.location_warehouse.map
+ * ("LOC1:wh-a|wh-b,LOC2:wh-c"). POs whose location is not mapped pass unless
+ * rules.location_warehouse.unmapped=reject; appointments without a warehouseId pass.
+ */
+final class LocationWarehouseRule implements BusinessRule {
+
+    private final Map<String, String[]> warehousesByLocation = new HashMap<>();
+    private final boolean rejectUnmapped;
+
+    LocationWarehouseRule(String mapping, String unmapped) {
+        for (String entry : mapping.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid rules.location_warehouse.map entry: '" + entry.trim() + "'");
+            }
+            String[] warehouses = entry.substring(colon + 1).split("\\|");
+            for (int i = 0; i < warehouses.length; i++) {
+                warehouses[i] = warehouses[i].trim();
+            }
+            warehousesByLocation.put(entry.substring(0, colon).trim(), warehouses);
+        }
+        this.rejectUnmapped = "reject".equalsIgnoreCase(unmapped.trim());
+    }
+
+    @Override
+    public String name() {
+        return "location_warehouse";
+    }
+
+    @Override
+    public Set<AppointmentDelta.Field> inputs() {
+        return EnumSet.of(AppointmentDelta.Field.WAREHOUSE);
+    }
+
+    @Override
+    public ValidationResult check(WebhookRequest request, PurchaseOrder po) {
+        String warehouseId = request.getAppointmentFields().getWarehouseId();
+        if (warehouseId == null || warehouseId.isEmpty()) {
+            return null;
+        }
+        // trim() returns the same string unless the CHAR column was padded
+        String location = po.getLocationCode() == null ? null : po.getLocationCode().trim();
+        String[] warehouses = location == null ? null : warehousesByLocation.get(location);
+        if (warehouses == null) {
+            return rejectUnmapped ? reject(po, location) : null;
+        }
+        for (String warehouse : warehouses) {
+            if (warehouse.equals(warehouseId)) {
+                return null;
+            }
+        }
+        return reject(po, location);
+    }
+
+    private static ValidationResult reject(PurchaseOrder po, String location) {
+        return ValidationResult.badRequest(
+            String.format(
+                "PO Number %s is for delivery location '%s', which is not received at this warehouse. " +
+                "Book the appointment at the warehouse for that location.",
+                po.getPoNumber(),
+                location
+            )
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package com.pollaminllc.crs.rules;
+
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * "po_status": the PO status must be in rules.po_status.allowed, compared
+ * case-insensitively and ignoring surrounding blanks (DB2 CHAR columns are padded).
+ */
+final class PoStatusRule implements BusinessRule {
+
+    private final String[] allowed;
+    private final String allowedText;
+
+    PoStatusRule(String allowedList) {
+        List<String> statuses = new ArrayList<>();
+        for (String status : allowedList.split(",")) {
+            if (!status.trim().isEmpty()) {
+                statuses.add(status.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        if (statuses.isEmpty()) {
+            throw new IllegalArgumentException("rules.po_status.allowed is empty");
+        }
+        this.allowed = statuses.toArray(new String[0]);
+        this.allowedText = String.join(", ", statuses);
+    }
+
+    @Override
+    public String name() {
+        return "po_status";
+    }
+
+    @Override
+    public Set<AppointmentDelta.Field> inputs() {
+        return EnumSet.noneOf(AppointmentDelta.Field.class);
+    }
+
+    @Override
+    public ValidationResult check(WebhookRequest request, PurchaseOrder po) {
+        String status = po.getStatus();
+        if (status != null) {
+            int from = 0;
+            int to = status.length();
+            while (from < to && status.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && status.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            for (String candidate : allowed) {
+                if (candidate.length() == to - from && status.regionMatches(true, from, candidate, 0, to - from)) {
+                    return null;
+                }
+            }
+        }
+        return ValidationResult.badRequest(
+            String.format(
+                "PO Number %s has status '%s' and is not available for scheduling. " +
+                "Only POs with status %s can be scheduled.",
+                po.getPoNumber(),
+                status,
+                allowedText
+            )
+        );
+    }
+}
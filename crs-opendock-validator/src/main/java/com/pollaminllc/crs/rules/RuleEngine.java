@@ -0,0 +1,119 @@
+package com.pollaminllc.crs.rules;
+
+import com.pollaminllc.crs.metrics.ValidatorMetrics;
+import com.pollaminllc.crs.model.AppointmentDelta;
+import com.pollaminllc.crs.model.PurchaseOrder;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+import com.pollaminllc.crs.util.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Business rules applied to a found PO, compiled once from config.
+ *
+ * rules.chain lists the rules in evaluation order; each is built with its settings
+ * parsed up front (allow-lists upper-cased, maps filled, day offsets resolved), and
+ * an unknown name or bad setting fails startup. Evaluation walks a fixed array,
+ * stops at the first rejection, and allocates nothing unless a rule rejects.
+ *
+ * Available rules:
+ * - po_status:          PO status in rules.po_status.allowed
+ * - appointment_date:   start within rules.appointment_date.* days of the PO's expected date
+ * - location_warehouse: warehouseId mapped to the PO's location in rules.location_warehouse.map
+ *
+ * Each rule reports evaluations, rejections and cumulative time via ValidatorMetrics.
+ */
+public final class RuleEngine {
+
+    private final BusinessRule[] rules;
+    private final ValidatorMetrics.RuleStats[] stats;
+    private final Set<AppointmentDelta.Field> inputs;
+
+    private RuleEngine(List<BusinessRule> rules, ValidatorMetrics metrics) {
+        this.rules = rules.toArray(new BusinessRule[0]);
+        this.stats = new ValidatorMetrics.RuleStats[this.rules.length];
+        EnumSet<AppointmentDelta.Field> fields = EnumSet.noneOf(AppointmentDelta.Field.class);
+        for (int i = 0; i < this.rules.length; i++) {
+            stats[i] = metrics.ruleStats(this.rules[i].name());
+            fields.addAll(this.rules[i].inputs());
+        }
+        this.inputs = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Build the rules named in rules.chain.
+     *
+     * @throws IllegalArgumentException for an unknown or repeated rule name or an invalid rule setting
+     */
+    public static RuleEngine compile(Config config, ValidatorMetrics metrics) {
+        List<BusinessRule> rules = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (String name : config.getRulesChain().split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Rule listed twice in rules.chain: " + name);
+            }
+            names.add(name);
+            rules.add(create(name, config));
+        }
+        return new RuleEngine(rules, metrics);
+    }
+
+    private static BusinessRule create(String name, Config config) {
+        switch (name) {
+            case "po_status":
+                return new PoStatusRule(config.getRulesPoStatusAllowed());
+            case "appointment_date":
+                return new AppointmentDateRule(
+                    config.getRulesAppointmentDateMinDaysBefore(),
+                    config.getRulesAppointmentDateMaxDaysAfter());
+            case "location_warehouse":
+                return new LocationWarehouseRule(
+                    config.getRulesLocationWarehouseMap(),
+                    config.getRulesLocationWarehouseUnmapped());
+            default:
+                throw new IllegalArgumentException("Unknown rule in rules.chain: " + name);
+        }
+    }
+
+    /**
+     * @return null if every rule passes, otherwise the first rejection
+     */
+    public ValidationResult evaluate(WebhookRequest request, PurchaseOrder po) {
+        // One clock read per rule: each rule ends where the next one starts
+        long last = System.nanoTime();
+        for (int i = 0; i < rules.length; i++) {
+            ValidationResult rejection = rules[i].check(request, po);
+            long now = System.nanoTime();
+            stats[i].record(now - last, rejection != null);
+            last = now;
+            if (rejection != null) {
+                return rejection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appointment fields any rule reads; a change to one of them means the rules must run again.
+     */
+    public Set<AppointmentDelta.Field> getInputs() {
+        return inputs;
+    }
+
+    public List<String> getRuleNames() {
+        List<String> names = new ArrayList<>(rules.length);
+        for (BusinessRule rule : rules) {
+            names.add(rule.name());
+        }
+        return names;
+    }
+}
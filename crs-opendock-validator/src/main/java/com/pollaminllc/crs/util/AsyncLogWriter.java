@@ -0,0 +1,187 @@
+package com.pollaminllc.crs.util;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer behind {@link Logger}.
+ *
+ * Request threads only claim a slot in a bounded lock-free ring buffer and store
+ * the unformatted record. A single daemon thread formats records and writes them
+ * to stdout in batches, flushing once per batch. When the ring is full the record
+ * is dropped and counted instead of blocking the caller.
+ */
+final class AsyncLogWriter {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int mask;
+    private final int batchSize;
+    private final PrintStream out;
+
+    // Next slot producers will claim / next slot the writer will read
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    AsyncLogWriter(int capacity, int batchSize, PrintStream out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.batchSize = Math.max(1, batchSize);
+        this.out = out;
+
+        this.writer = new Thread(this::writeLoop, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a record for writing. Never blocks.
+     *
+     * @return false if the ring buffer was full and the record was dropped
+     */
+    boolean offer(LogRecord record) {
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head.get() >= slots.length()) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+
+        slots.set((int) (slot & mask), record);
+        return true;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getWritten() {
+        return written.sum();
+    }
+
+    int getPending() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Stop the writer thread after it has written everything already queued.
+     */
+    void shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int count = drainBatch();
+            if (count > 0) {
+                out.flush();
+                written.add(count);
+            } else if (!running && head.get() == tail.get()) {
+                out.flush();
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        while (count < batchSize) {
+            long next = head.get();
+            int index = (int) (next & mask);
+            LogRecord record = slots.get(index);
+            if (record == null) {
+                // Empty, or a producer has claimed the slot but not stored its record yet
+                break;
+            }
+            slots.lazySet(index, null);
+            head.lazySet(next + 1);
+            write(record);
+            count++;
+        }
+        return count;
+    }
+
+    private void write(LogRecord record) {
+        line.setLength(0);
+        TIMESTAMP.formatTo(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp), ZoneId.systemDefault()), line);
+        line.append(' ').append(record.level.label()).append(' ')
+            .append(record.logger).append(' ')
+            .append(record.event);
+
+        Object[] fields = record.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(String.valueOf(fields[i + 1]));
+        }
+
+        out.println(line);
+        if (record.error != null) {
+            record.error.printStackTrace(out);
+        }
+    }
+
+    private void appendValue(String value) {
+        boolean quote = value.isEmpty() || value.indexOf(' ') >= 0 || value.indexOf('"') >= 0 || value.indexOf('=') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\');
+            }
+            line.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * One log event as captured on the calling thread. Formatting happens on the writer thread.
+     */
+    static final class LogRecord {
+        final long timestamp;
+        final Logger.Level level;
+        final String logger;
+        final String event;
+        final Object[] fields;
+        final Throwable error;
+
+        LogRecord(long timestamp, Logger.Level level, String logger, String event, Object[] fields, Throwable error) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.logger = logger;
+            this.event = event;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+}
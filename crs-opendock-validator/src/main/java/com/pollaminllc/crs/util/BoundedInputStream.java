@@ -0,0 +1,93 @@
+package com.pollaminllc.crs.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream wrapper that fails once more than a fixed number of bytes has been read.
+ * Used to cap request bodies while they are being parsed, without buffering them first.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        // Ask for at most one byte past the limit so an oversized body is detected promptly
+        long allowed = maxBytes - count + 1;
+        int n = super.read(buf, off, (int) Math.min(len, Math.max(1, allowed)));
+        if (n > 0) {
+            advance(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Start counting from zero again, so the limit applies to each part of a streamed
+     * body rather than to the whole of it.
+     */
+    public void resetCount() {
+        count = 0;
+    }
+
+    /**
+     * Bytes read so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    private void advance(long n) throws PayloadTooLargeException {
+        count += n;
+        if (count > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+    }
+
+    /**
+     * Thrown when the stream exceeds its byte limit.
+     */
+    public static class PayloadTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long maxBytes;
+
+        public PayloadTooLargeException(long maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+            this.maxBytes = maxBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+    }
+}
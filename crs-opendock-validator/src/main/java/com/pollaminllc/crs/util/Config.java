@@ -16,21 +16,205 @@ public class Config {
     private final int port;
     private final String secretToken;
 
+    // HTTP server execution settings
+    private final long maxBodyBytes;
+    private final String jsonCodec;
+    private final boolean idempotencyEnabled;
+    private final int idempotencyWindowSeconds;
+    private final int idempotencyMaxEntries;
+    private final boolean deltaEnabled;
+    private final int deltaMaxAgeSeconds;
+    private final int deltaMaxEntries;
+    private final String rulesChain;
+    private final boolean multiRefEnabled;
+    private final int validateBatchLookupSize;
+    private final int validateBatchMaxItems;
+    private final int multiRefMaxRefs;
+    private final String rulesPoStatusAllowed;
+    private final int rulesAppointmentDateMinDaysBefore;
+    private final int rulesAppointmentDateMaxDaysAfter;
+    private final String rulesLocationWarehouseMap;
+    private final String rulesLocationWarehouseUnmapped;
+    private final int serverBacklog;
+    private final long deadlineBudgetMs;
+    private final String deadlineExhaustedPolicy;
+    private final String serverExecutor;
+    private final int serverThreads;
+    private final int serverQueueCapacity;
+    private final String serverRejectionPolicy;
+    private final int serverIoThreads;
+    private final int serverIoQueueCapacity;
+
+    // Logging settings
+    private final String logLevel;
+    private final int logBufferSize;
+    private final int logBatchSize;
+
+    // Flight recorder settings
+    private final boolean jfrContinuous;
+    private final String jfrSettings;
+    private final long jfrMaxAgeMinutes;
+    private final long jfrMaxSizeMb;
+    private final String jfrDumpFile;
+
+    // Repository settings
+    private final String repositoryType;
+    private final boolean coalesceEnabled;
+    private final boolean batchEnabled;
+    private final long batchWindowMs;
+    private final int batchMaxSize;
+    private final int batchMaxConcurrent;
+    private final boolean cacheEnabled;
+    private final int cacheMaxEntries;
+    private final long cacheTtlSeconds;
+    private final long cacheNegativeTtlSeconds;
+    private final boolean cacheStaleEnabled;
+    private final long cacheMaxStaleSeconds;
+    private final long cacheStaleRefreshIntervalMs;
+    private final int cacheRefreshThreads;
+    private final boolean snapshotEnabled;
+    private final int snapshotPartitions;
+    private final int snapshotLoadThreads;
+    private final long snapshotRefreshIntervalSeconds;
+    private final long snapshotFullReloadMinutes;
+    private final long snapshotChangeOverlapMs;
+    private final long snapshotMaxAgeSeconds;
+    private final boolean snapshotAuthoritative;
+    private final String snapshotFormat;
+    private final String snapshotFile;
+    private final long snapshotFileWriteMinutes;
+    private final long snapshotFileMaxAgeMinutes;
+    private final boolean bloomEnabled;
+    private final double bloomFpp;
+    private final long bloomRebuildMinutes;
+    private final long bloomRefreshIntervalSeconds;
+
+    // Circuit breaker and bulkhead settings
+    private final boolean breakerEnabled;
+    private final int breakerWindowSize;
+    private final int breakerMinimumCalls;
+    private final int breakerFailureRatePercent;
+    private final long breakerSlowCallMs;
+    private final int breakerSlowCallRatePercent;
+    private final long breakerOpenMs;
+    private final int breakerHalfOpenCalls;
+    private final int bulkheadMaxConcurrent;
+    private final long bulkheadMaxWaitMs;
+
     // Database settings (for future DB2 connection)
     private final String dbServer;
     private final String dbUser;
     private final String dbPassword;
     private final String dbName;
 
+    // Connection pool settings
+    private final int dbPoolMinSize;
+    private final int dbPoolMaxSize;
+    private final long dbPoolAcquireTimeoutMs;
+    private final long dbPoolIdleTimeoutMs;
+    private final long dbPoolEvictionIntervalMs;
+    private final int dbPoolValidationTimeoutSeconds;
+    private final int dbPoolStatementCacheSize;
+
     private Config(Properties props) {
         this.port = Integer.parseInt(props.getProperty("server.port", "8080"));
         this.secretToken = props.getProperty("auth.secret_token", "");
 
+        this.maxBodyBytes = Long.parseLong(props.getProperty("server.max_body_bytes", "65536"));
+        this.jsonCodec = props.getProperty("json.codec", "fast");
+        this.idempotencyEnabled = Boolean.parseBoolean(props.getProperty("idempotency.enabled", "false"));
+        this.idempotencyWindowSeconds = Integer.parseInt(props.getProperty("idempotency.window_seconds", "30"));
+        this.idempotencyMaxEntries = Integer.parseInt(props.getProperty("idempotency.max_entries", "10000"));
+        this.deltaEnabled = Boolean.parseBoolean(props.getProperty("delta.enabled", "false"));
+        this.deltaMaxAgeSeconds = Integer.parseInt(props.getProperty("delta.max_age_seconds", "600"));
+        this.deltaMaxEntries = Integer.parseInt(props.getProperty("delta.max_entries", "50000"));
+        this.rulesChain = props.getProperty("rules.chain", "");
+        this.multiRefEnabled = Boolean.parseBoolean(props.getProperty("multi_ref.enabled", "false"));
+        this.multiRefMaxRefs = Integer.parseInt(props.getProperty("multi_ref.max_refs", "20"));
+        this.validateBatchLookupSize = Integer.parseInt(props.getProperty("validate_batch.lookup_size", "500"));
+        this.validateBatchMaxItems = Integer.parseInt(props.getProperty("validate_batch.max_items", "100000"));
+        this.rulesPoStatusAllowed = props.getProperty("rules.po_status.allowed", "OPEN,ACTIVE,PENDING");
+        this.rulesAppointmentDateMinDaysBefore = Integer.parseInt(
+            props.getProperty("rules.appointment_date.min_days_before_expected", "0"));
+        this.rulesAppointmentDateMaxDaysAfter = Integer.parseInt(
+            props.getProperty("rules.appointment_date.max_days_after_expected", "-1"));
+        this.rulesLocationWarehouseMap = props.getProperty("rules.location_warehouse.map", "");
+        this.rulesLocationWarehouseUnmapped = props.getProperty("rules.location_warehouse.unmapped", "allow");
+        this.serverBacklog = Integer.parseInt(props.getProperty("server.backlog", "0"));
+        this.deadlineBudgetMs = Long.parseLong(props.getProperty("deadline.budget_ms", "4000"));
+        this.deadlineExhaustedPolicy = props.getProperty("deadline.exhausted_policy", "fail_closed");
+        this.serverExecutor = props.getProperty("server.executor", "fixed");
+        this.serverThreads = Integer.parseInt(props.getProperty("server.threads", "10"));
+        this.serverQueueCapacity = Integer.parseInt(props.getProperty("server.queue_capacity", "100"));
+        this.serverRejectionPolicy = props.getProperty("server.rejection_policy", "abort");
+        this.serverIoThreads = Integer.parseInt(props.getProperty("server.io_threads", "10"));
+        this.serverIoQueueCapacity = Integer.parseInt(props.getProperty("server.io_queue_capacity", "200"));
+
+        this.logLevel = props.getProperty("log.level", "INFO");
+        this.logBufferSize = Integer.parseInt(props.getProperty("log.buffer_size", "8192"));
+        this.logBatchSize = Integer.parseInt(props.getProperty("log.batch_size", "256"));
+
+        this.jfrContinuous = Boolean.parseBoolean(props.getProperty("jfr.continuous", "false"));
+        this.jfrSettings = props.getProperty("jfr.settings", "default");
+        this.jfrMaxAgeMinutes = Long.parseLong(props.getProperty("jfr.max_age_minutes", "30"));
+        this.jfrMaxSizeMb = Long.parseLong(props.getProperty("jfr.max_size_mb", "100"));
+        this.jfrDumpFile = props.getProperty("jfr.dump_file", "crs-validator.jfr");
+
+        this.repositoryType = props.getProperty("repository.type", "stub");
+        this.coalesceEnabled = Boolean.parseBoolean(props.getProperty("coalesce.enabled", "true"));
+        this.batchEnabled = Boolean.parseBoolean(props.getProperty("batch.enabled", "false"));
+        this.batchWindowMs = Long.parseLong(props.getProperty("batch.window_ms", "5"));
+        this.batchMaxSize = Integer.parseInt(props.getProperty("batch.max_size", "50"));
+        this.batchMaxConcurrent = Integer.parseInt(props.getProperty("batch.max_concurrent", "4"));
+        this.cacheEnabled = Boolean.parseBoolean(props.getProperty("cache.enabled", "true"));
+        this.cacheMaxEntries = Integer.parseInt(props.getProperty("cache.max_entries", "10000"));
+        this.cacheTtlSeconds = Long.parseLong(props.getProperty("cache.ttl_seconds", "300"));
+        this.cacheNegativeTtlSeconds = Long.parseLong(props.getProperty("cache.negative_ttl_seconds", "30"));
+        this.cacheStaleEnabled = Boolean.parseBoolean(props.getProperty("cache.stale_enabled", "false"));
+        this.cacheMaxStaleSeconds = Long.parseLong(props.getProperty("cache.max_stale_seconds", "3600"));
+        this.cacheStaleRefreshIntervalMs = Long.parseLong(props.getProperty("cache.stale_refresh_interval_ms", "5000"));
+        this.cacheRefreshThreads = Integer.parseInt(props.getProperty("cache.refresh_threads", "2"));
+        this.snapshotEnabled = Boolean.parseBoolean(props.getProperty("snapshot.enabled", "false"));
+        this.snapshotPartitions = Integer.parseInt(props.getProperty("snapshot.partitions", "8"));
+        this.snapshotLoadThreads = Integer.parseInt(props.getProperty("snapshot.load_threads", "4"));
+        this.snapshotRefreshIntervalSeconds = Long.parseLong(props.getProperty("snapshot.refresh_interval_seconds", "30"));
+        this.snapshotFullReloadMinutes = Long.parseLong(props.getProperty("snapshot.full_reload_minutes", "360"));
+        this.snapshotChangeOverlapMs = Long.parseLong(props.getProperty("snapshot.change_overlap_ms", "5000"));
+        this.snapshotMaxAgeSeconds = Long.parseLong(props.getProperty("snapshot.max_age_seconds", "300"));
+        this.snapshotAuthoritative = Boolean.parseBoolean(props.getProperty("snapshot.authoritative", "false"));
+        this.snapshotFormat = props.getProperty("snapshot.format", "compact");
+        this.snapshotFile = props.getProperty("snapshot.file", "po-snapshot.bin").trim();
+        this.snapshotFileWriteMinutes = Long.parseLong(props.getProperty("snapshot.file_write_minutes", "10"));
+        this.snapshotFileMaxAgeMinutes = Long.parseLong(props.getProperty("snapshot.file_max_age_minutes", "1440"));
+        this.bloomEnabled = Boolean.parseBoolean(props.getProperty("bloom.enabled", "false"));
+        this.bloomFpp = Double.parseDouble(props.getProperty("bloom.fpp", "0.01"));
+        this.bloomRebuildMinutes = Long.parseLong(props.getProperty("bloom.rebuild_minutes", "60"));
+        this.bloomRefreshIntervalSeconds = Long.parseLong(props.getProperty("bloom.refresh_interval_seconds", "10"));
+
+        this.breakerEnabled = Boolean.parseBoolean(props.getProperty("breaker.enabled", "true"));
+        this.breakerWindowSize = Integer.parseInt(props.getProperty("breaker.window_size", "20"));
+        this.breakerMinimumCalls = Integer.parseInt(props.getProperty("breaker.minimum_calls", "10"));
+        this.breakerFailureRatePercent = Integer.parseInt(props.getProperty("breaker.failure_rate_percent", "50"));
+        this.breakerSlowCallMs = Long.parseLong(props.getProperty("breaker.slow_call_ms", "2000"));
+        this.breakerSlowCallRatePercent = Integer.parseInt(props.getProperty("breaker.slow_call_rate_percent", "80"));
+        this.breakerOpenMs = Long.parseLong(props.getProperty("breaker.open_ms", "10000"));
+        this.breakerHalfOpenCalls = Integer.parseInt(props.getProperty("breaker.half_open_calls", "3"));
+        this.bulkheadMaxConcurrent = Integer.parseInt(props.getProperty("bulkhead.max_concurrent", "8"));
+        this.bulkheadMaxWaitMs = Long.parseLong(props.getProperty("bulkhead.max_wait_ms", "100"));
+
         // DB settings (will be used when DB2Repository is implemented)
         this.dbServer = props.getProperty("db.server", "");
         this.dbUser = props.getProperty("db.user", "");
         this.dbPassword = props.getProperty("db.password", "");
         this.dbName = props.getProperty("db.name", "");
+
+        this.dbPoolMinSize = Integer.parseInt(props.getProperty("db.pool.min_size", "2"));
+        this.dbPoolMaxSize = Integer.parseInt(props.getProperty("db.pool.max_size", "10"));
+        this.dbPoolAcquireTimeoutMs = Long.parseLong(props.getProperty("db.pool.acquire_timeout_ms", "5000"));
+        this.dbPoolIdleTimeoutMs = Long.parseLong(props.getProperty("db.pool.idle_timeout_ms", "300000"));
+        this.dbPoolEvictionIntervalMs = Long.parseLong(props.getProperty("db.pool.eviction_interval_ms", "60000"));
+        this.dbPoolValidationTimeoutSeconds = Integer.parseInt(props.getProperty("db.pool.validation_timeout_seconds", "2"));
+        this.dbPoolStatementCacheSize = Integer.parseInt(props.getProperty("db.pool.statement_cache_size", "16"));
     }
 
     /**
@@ -70,6 +254,14 @@ public class Config {
         return new Config(props);
     }
 
+    /**
+     * Build configuration from properties already in memory.
+     * No file or environment lookups; used by tools that embed the server.
+     */
+    public static Config fromProperties(Properties props) {
+        return new Config(props);
+    }
+
     public int getPort() {
         return port;
     }
@@ -78,6 +270,313 @@ public class Config {
         return secretToken;
     }
 
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public String getJsonCodec() {
+        return jsonCodec;
+    }
+
+    public boolean isIdempotencyEnabled() {
+        return idempotencyEnabled;
+    }
+
+    public int getIdempotencyWindowSeconds() {
+        return idempotencyWindowSeconds;
+    }
+
+    public int getIdempotencyMaxEntries() {
+        return idempotencyMaxEntries;
+    }
+
+    public boolean isDeltaEnabled() {
+        return deltaEnabled;
+    }
+
+    public int getDeltaMaxAgeSeconds() {
+        return deltaMaxAgeSeconds;
+    }
+
+    public int getDeltaMaxEntries() {
+        return deltaMaxEntries;
+    }
+
+    public boolean isMultiRefEnabled() {
+        return multiRefEnabled;
+    }
+
+    public int getMultiRefMaxRefs() {
+        return multiRefMaxRefs;
+    }
+
+    public int getValidateBatchLookupSize() {
+        return validateBatchLookupSize;
+    }
+
+    public int getValidateBatchMaxItems() {
+        return validateBatchMaxItems;
+    }
+
+    public String getRulesChain() {
+        return rulesChain;
+    }
+
+    public String getRulesPoStatusAllowed() {
+        return rulesPoStatusAllowed;
+    }
+
+    public int getRulesAppointmentDateMinDaysBefore() {
+        return rulesAppointmentDateMinDaysBefore;
+    }
+
+    public int getRulesAppointmentDateMaxDaysAfter() {
+        return rulesAppointmentDateMaxDaysAfter;
+    }
+
+    public String getRulesLocationWarehouseMap() {
+        return rulesLocationWarehouseMap;
+    }
+
+    public String getRulesLocationWarehouseUnmapped() {
+        return rulesLocationWarehouseUnmapped;
+    }
+
+    public int getServerBacklog() {
+        return serverBacklog;
+    }
+
+    public String getServerExecutor() {
+        return serverExecutor;
+    }
+
+    public int getServerThreads() {
+        return serverThreads;
+    }
+
+    public int getServerQueueCapacity() {
+        return serverQueueCapacity;
+    }
+
+    public String getServerRejectionPolicy() {
+        return serverRejectionPolicy;
+    }
+
+    public int getServerIoThreads() {
+        return serverIoThreads;
+    }
+
+    public int getServerIoQueueCapacity() {
+        return serverIoQueueCapacity;
+    }
+
+    public String getLogLevel() {
+        return logLevel;
+    }
+
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public int getLogBatchSize() {
+        return logBatchSize;
+    }
+
+    public boolean isJfrContinuous() {
+        return jfrContinuous;
+    }
+
+    public String getJfrSettings() {
+        return jfrSettings;
+    }
+
+    public long getJfrMaxAgeMinutes() {
+        return jfrMaxAgeMinutes;
+    }
+
+    public long getJfrMaxSizeMb() {
+        return jfrMaxSizeMb;
+    }
+
+    public String getJfrDumpFile() {
+        return jfrDumpFile;
+    }
+
+    public String getRepositoryType() {
+        return repositoryType;
+    }
+
+    public boolean isCoalesceEnabled() {
+        return coalesceEnabled;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public long getBatchWindowMs() {
+        return batchWindowMs;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public int getBatchMaxConcurrent() {
+        return batchMaxConcurrent;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getCacheNegativeTtlSeconds() {
+        return cacheNegativeTtlSeconds;
+    }
+
+    public long getDeadlineBudgetMs() {
+        return deadlineBudgetMs;
+    }
+
+    public String getDeadlineExhaustedPolicy() {
+        return deadlineExhaustedPolicy;
+    }
+
+    /**
+     * True if requests that run out of time are allowed (200) rather than rejected (503).
+     */
+    public boolean isDeadlineFailOpen() {
+        return "fail_open".equalsIgnoreCase(deadlineExhaustedPolicy);
+    }
+
+    public boolean isCacheStaleEnabled() {
+        return cacheStaleEnabled;
+    }
+
+    public long getCacheMaxStaleSeconds() {
+        return cacheMaxStaleSeconds;
+    }
+
+    public long getCacheStaleRefreshIntervalMs() {
+        return cacheStaleRefreshIntervalMs;
+    }
+
+    public int getCacheRefreshThreads() {
+        return cacheRefreshThreads;
+    }
+
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    public int getSnapshotPartitions() {
+        return snapshotPartitions;
+    }
+
+    public int getSnapshotLoadThreads() {
+        return snapshotLoadThreads;
+    }
+
+    public long getSnapshotRefreshIntervalSeconds() {
+        return snapshotRefreshIntervalSeconds;
+    }
+
+    public long getSnapshotFullReloadMinutes() {
+        return snapshotFullReloadMinutes;
+    }
+
+    public long getSnapshotChangeOverlapMs() {
+        return snapshotChangeOverlapMs;
+    }
+
+    public long getSnapshotMaxAgeSeconds() {
+        return snapshotMaxAgeSeconds;
+    }
+
+    public boolean isSnapshotAuthoritative() {
+        return snapshotAuthoritative;
+    }
+
+    public String getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public long getSnapshotFileWriteMinutes() {
+        return snapshotFileWriteMinutes;
+    }
+
+    public long getSnapshotFileMaxAgeMinutes() {
+        return snapshotFileMaxAgeMinutes;
+    }
+
+    public boolean isBloomEnabled() {
+        return bloomEnabled;
+    }
+
+    public double getBloomFpp() {
+        return bloomFpp;
+    }
+
+    public long getBloomRebuildMinutes() {
+        return bloomRebuildMinutes;
+    }
+
+    public long getBloomRefreshIntervalSeconds() {
+        return bloomRefreshIntervalSeconds;
+    }
+
+    public boolean isBreakerEnabled() {
+        return breakerEnabled;
+    }
+
+    public int getBreakerWindowSize() {
+        return breakerWindowSize;
+    }
+
+    public int getBreakerMinimumCalls() {
+        return breakerMinimumCalls;
+    }
+
+    public int getBreakerFailureRatePercent() {
+        return breakerFailureRatePercent;
+    }
+
+    public long getBreakerSlowCallMs() {
+        return breakerSlowCallMs;
+    }
+
+    public int getBreakerSlowCallRatePercent() {
+        return breakerSlowCallRatePercent;
+    }
+
+    public long getBreakerOpenMs() {
+        return breakerOpenMs;
+    }
+
+    public int getBreakerHalfOpenCalls() {
+        return breakerHalfOpenCalls;
+    }
+
+    public int getBulkheadMaxConcurrent() {
+        return bulkheadMaxConcurrent;
+    }
+
+    public long getBulkheadMaxWaitMs() {
+        return bulkheadMaxWaitMs;
+    }
+
     public String getDbServer() {
         return dbServer;
     }
@@ -94,6 +593,34 @@ public class Config {
         return dbName;
     }
 
+    public int getDbPoolMinSize() {
+        return dbPoolMinSize;
+    }
+
+    public int getDbPoolMaxSize() {
+        return dbPoolMaxSize;
+    }
+
+    public long getDbPoolAcquireTimeoutMs() {
+        return dbPoolAcquireTimeoutMs;
+    }
+
+    public long getDbPoolIdleTimeoutMs() {
+        return dbPoolIdleTimeoutMs;
+    }
+
+    public long getDbPoolEvictionIntervalMs() {
+        return dbPoolEvictionIntervalMs;
+    }
+
+    public int getDbPoolValidationTimeoutSeconds() {
+        return dbPoolValidationTimeoutSeconds;
+    }
+
+    public int getDbPoolStatementCacheSize() {
+        return dbPoolStatementCacheSize;
+    }
+
     public boolean hasSecretToken() {
         return secretToken != null && !secretToken.isEmpty();
     }
@@ -101,9 +628,12 @@ public class Config {
     @Override
     public String toString() {
         return String.format(
-            "Config{port=%d, hasToken=%s, dbServer=%s, dbName=%s}",
+            "Config{port=%d, executor=%s, hasToken=%s, repository=%s, cache=%s, dbServer=%s, dbName=%s}",
             port,
+            serverExecutor,
             hasSecretToken(),
+            repositoryType,
+            cacheEnabled,
             dbServer.isEmpty() ? "(not set)" : dbServer,
             dbName.isEmpty() ? "(not set)" : dbName
         );
@@ -3,6 +3,11 @@ package com.pollaminllc.crs.util;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
 
 /**
  * JSON utility class using Gson for serialization/deserialization.
@@ -30,6 +35,42 @@ public class JsonUtil {
         return GSON.fromJson(json, clazz);
     }
 
+    /**
+     * Parse JSON directly from a character stream, without building an intermediate String.
+     * The stream must contain exactly one JSON value.
+     *
+     * @param reader Source of JSON text; not closed by this method
+     * @param clazz  Target class
+     * @return Parsed object
+     * @throws JsonSyntaxException if JSON is empty, invalid, followed by trailing data,
+     *                             or the stream fails while reading
+     */
+    public static <T> T fromJson(Reader reader, Class<T> clazz) {
+        JsonReader jsonReader = new JsonReader(reader);
+        T value = GSON.fromJson(jsonReader, clazz);
+        if (value == null) {
+            throw new JsonSyntaxException("Empty JSON");
+        }
+        try {
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected data after JSON value");
+            }
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return value;
+    }
+
+    /**
+     * Parse the next JSON value from a reader positioned inside a larger document or stream.
+     *
+     * @return Parsed object, or null for a JSON null
+     * @throws JsonSyntaxException if the value is invalid or has the wrong shape
+     */
+    public static <T> T fromJson(JsonReader reader, Class<T> clazz) {
+        return GSON.fromJson(reader, clazz);
+    }
+
     /**
      * Convert object to JSON string (pretty printed).
      */
@@ -0,0 +1,126 @@
+package com.pollaminllc.crs.util;
+
+/**
+ * Structured, asynchronous logger.
+ *
+ * Each call records an event name plus key/value pairs, e.g.
+ *   LOG.info("response", "status", 200, "ms", 3);
+ * which is written as
+ *   2024-03-15 10:00:00.123 INFO  ValidatorHandler response status=200 ms=3
+ *
+ * Records are handed to a background writer (see AsyncLogWriter), so request
+ * threads never wait on stdout. Level and buffer sizes come from log.* properties
+ * via {@link #configure(Config)}; until then INFO and default sizes apply.
+ */
+public final class Logger {
+
+    public enum Level {
+        DEBUG("DEBUG"),
+        INFO("INFO "),
+        WARN("WARN "),
+        ERROR("ERROR");
+
+        private final String label;
+
+        Level(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private static volatile Level threshold = Level.INFO;
+    private static volatile AsyncLogWriter writer = new AsyncLogWriter(8192, 256, System.out);
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get a logger for a component. The name is written on every line.
+     */
+    public static Logger get(String name) {
+        return new Logger(name);
+    }
+
+    /**
+     * Apply log.level, log.buffer_size and log.batch_size from config.
+     * Call once at startup, before the server accepts requests.
+     */
+    public static synchronized void configure(Config config) {
+        threshold = parseLevel(config.getLogLevel());
+        AsyncLogWriter previous = writer;
+        writer = new AsyncLogWriter(config.getLogBufferSize(), config.getLogBatchSize(), System.out);
+        previous.shutdown(1000);
+    }
+
+    /**
+     * Write out everything still queued and stop the writer. Used from the shutdown hook.
+     */
+    public static void shutdown() {
+        writer.shutdown(2000);
+    }
+
+    /**
+     * Records dropped because the ring buffer was full.
+     */
+    public static long getDroppedCount() {
+        return writer.getDropped();
+    }
+
+    public static long getWrittenCount() {
+        return writer.getWritten();
+    }
+
+    public static int getPendingCount() {
+        return writer.getPending();
+    }
+
+    private static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return Level.INFO;
+        }
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String event, Object... fields) {
+        log(Level.DEBUG, event, fields, null);
+    }
+
+    public void info(String event, Object... fields) {
+        log(Level.INFO, event, fields, null);
+    }
+
+    public void warn(String event, Object... fields) {
+        log(Level.WARN, event, fields, null);
+    }
+
+    public void error(String event, Throwable error, Object... fields) {
+        log(Level.ERROR, event, fields, error);
+    }
+
+    private void log(Level level, String event, Object[] fields, Throwable error) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        writer.offer(new AsyncLogWriter.LogRecord(
+            System.currentTimeMillis(), level, name, event,
+            fields == null ? NO_FIELDS : fields, error
+        ));
+    }
+}
@@ -0,0 +1,334 @@
+package com.pollaminllc.crs.util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.pollaminllc.crs.model.AppointmentFields;
+import com.pollaminllc.crs.model.ValidationResult;
+import com.pollaminllc.crs.model.WebhookRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hand-written JSON codec for the webhook payload and response.
+ *
+ * Decoding walks the token stream once and fills WebhookRequest/AppointmentFields
+ * through their setters; unknown fields are skipped without being materialized.
+ * Encoding writes the {"data":...} / {"errorMessage":...} response as UTF-8 into
+ * a per-thread reusable buffer.
+ *
+ * Gson (JsonUtil) remains the general-purpose path; json.codec=gson switches
+ * request parsing back to it.
+ */
+public final class WebhookJsonCodec {
+
+    private static final byte[] DATA_PREFIX = ascii("{\"data\":\"");
+    private static final byte[] ERROR_PREFIX = ascii("{\"errorMessage\":\"");
+    private static final byte[] SUFFIX = ascii("\"}");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] INDEX_PREFIX = ascii("{\"index\":");
+    private static final byte[] REF_NUMBER_FIELD = ascii(",\"refNumber\":\"");
+    private static final byte[] STATUS_FIELD = ascii(",\"status\":");
+    private static final byte[] DATA_FIELD = ascii(",\"data\":\"");
+    private static final byte[] ERROR_FIELD = ascii(",\"errorMessage\":\"");
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer(256));
+
+    private WebhookJsonCodec() {
+    }
+
+    // ---------------------------------------------------------------- decoding
+
+    /**
+     * Decode a WebhookRequest from a stream containing exactly one JSON object.
+     *
+     * @throws JsonSyntaxException if the JSON is empty, malformed, has the wrong shape
+     *                             or trailing data, or the stream fails while reading
+     */
+    public static WebhookRequest readWebhookRequest(Reader reader) {
+        JsonReader json = new JsonReader(reader);
+        try {
+            try {
+                json.peek();
+            } catch (EOFException e) {
+                throw new JsonSyntaxException("Empty JSON");
+            }
+            WebhookRequest request = readWebhookRequest(json);
+            if (json.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected data after JSON value");
+            }
+            return request;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Decode a WebhookRequest from the reader's current position. A JSON null yields null.
+     */
+    public static WebhookRequest readWebhookRequest(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+
+        WebhookRequest request = new WebhookRequest();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "action":
+                    request.setAction(readString(json));
+                    break;
+                case "appointmentFields":
+                    request.setAppointmentFields(readAppointmentFields(json));
+                    break;
+                case "existingAppointment":
+                    request.setExistingAppointment(readAppointmentFields(json));
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return request;
+    }
+
+    private static AppointmentFields readAppointmentFields(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+
+        AppointmentFields fields = new AppointmentFields();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "refNumber":
+                    fields.setRefNumber(readString(json));
+                    break;
+                case "start":
+                    fields.setStart(readString(json));
+                    break;
+                case "end":
+                    fields.setEnd(readString(json));
+                    break;
+                case "loadTypeId":
+                    fields.setLoadTypeId(readString(json));
+                    break;
+                case "status":
+                    fields.setStatus(readString(json));
+                    break;
+                case "dockId":
+                    fields.setDockId(readString(json));
+                    break;
+                case "warehouseId":
+                    fields.setWarehouseId(readString(json));
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return fields;
+    }
+
+    /**
+     * Read a string field, accepting numbers and booleans the way Gson does for String fields.
+     */
+    private static String readString(JsonReader json) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(json.nextBoolean());
+        }
+        return json.nextString();
+    }
+
+    // ---------------------------------------------------------------- encoding
+
+    /**
+     * Encode a validation result into this thread's reusable buffer.
+     * The returned buffer is only valid until the next encode call on the same thread.
+     */
+    public static ByteBuffer encode(ValidationResult result) {
+        ByteBuffer buf = BUFFERS.get();
+        buf.reset();
+        buf.write(result.isSuccess() ? DATA_PREFIX : ERROR_PREFIX);
+        writeEscaped(buf, result.getMessage());
+        buf.write(SUFFIX);
+        return buf;
+    }
+
+    /**
+     * Encode an {"errorMessage":...} body into this thread's reusable buffer.
+     */
+    public static ByteBuffer encodeError(String message) {
+        ByteBuffer buf = BUFFERS.get();
+        buf.reset();
+        buf.write(ERROR_PREFIX);
+        writeEscaped(buf, message);
+        buf.write(SUFFIX);
+        return buf;
+    }
+
+    /**
+     * Encode one line of a /validate/batch NDJSON response into this thread's reusable buffer:
+     * {"index":n,"refNumber":...,"status":...,"data"|"errorMessage":...} and a newline.
+     *
+     * @param refNumber Omitted if null
+     */
+    public static ByteBuffer encodeBatchLine(int index, String refNumber, ValidationResult result) {
+        return encodeBatchLine(index, refNumber, result.getHttpStatus(), result.isSuccess(), result.getMessage());
+    }
+
+    /**
+     * Encode an error line of a /validate/batch NDJSON response, for an item that has no ValidationResult.
+     */
+    public static ByteBuffer encodeBatchError(int index, int status, String message) {
+        return encodeBatchLine(index, null, status, false, message);
+    }
+
+    private static ByteBuffer encodeBatchLine(int index, String refNumber, int status, boolean success,
+                                              String message) {
+        ByteBuffer buf = BUFFERS.get();
+        buf.reset();
+        buf.write(INDEX_PREFIX);
+        writeInt(buf, index);
+        if (refNumber != null) {
+            buf.write(REF_NUMBER_FIELD);
+            writeEscaped(buf, refNumber);
+            buf.write('"');
+        }
+        buf.write(STATUS_FIELD);
+        writeInt(buf, status);
+        buf.write(success ? DATA_FIELD : ERROR_FIELD);
+        writeEscaped(buf, message);
+        buf.write(SUFFIX);
+        buf.write('\n');
+        return buf;
+    }
+
+    private static void writeInt(ByteBuffer buf, int value) {
+        String digits = Integer.toString(value);
+        for (int i = 0; i < digits.length(); i++) {
+            buf.write(digits.charAt(i));
+        }
+    }
+
+    /**
+     * Append a string as the contents of a JSON string literal, UTF-8 encoded.
+     */
+    public static void writeEscaped(ByteBuffer buf, String s) {
+        if (s == null) {
+            return;
+        }
+        int len = s.length();
+        buf.ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    buf.write('\\');
+                }
+                buf.write(c);
+            } else if (c < 0x20) {
+                switch (c) {
+                    case '\n': buf.write('\\'); buf.write('n'); break;
+                    case '\r': buf.write('\\'); buf.write('r'); break;
+                    case '\t': buf.write('\\'); buf.write('t'); break;
+                    default:
+                        buf.write('\\'); buf.write('u'); buf.write('0'); buf.write('0');
+                        buf.write(HEX[c >> 4]); buf.write(HEX[c & 0xF]);
+                }
+            } else if (c < 0x800) {
+                buf.write(0xC0 | (c >> 6));
+                buf.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf.write(0xF0 | (cp >> 18));
+                buf.write(0x80 | ((cp >> 12) & 0x3F));
+                buf.write(0x80 | ((cp >> 6) & 0x3F));
+                buf.write(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: same replacement String.getBytes(UTF_8) uses
+                buf.write('?');
+            } else {
+                buf.write(0xE0 | (c >> 12));
+                buf.write(0x80 | ((c >> 6) & 0x3F));
+                buf.write(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Growable byte array that is reset and reused rather than reallocated.
+     */
+    public static final class ByteBuffer {
+
+        private byte[] bytes;
+        private int length;
+
+        public ByteBuffer(int initialCapacity) {
+            this.bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        public void reset() {
+            length = 0;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public byte[] array() {
+            return bytes;
+        }
+
+        public void write(int b) {
+            if (length == bytes.length) {
+                ensureCapacity(1);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        public void write(byte[] src) {
+            ensureCapacity(src.length);
+            System.arraycopy(src, 0, bytes, length, src.length);
+            length += src.length;
+        }
+
+        /**
+         * Make room for at least {@code extra} more bytes.
+         */
+        public void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, length);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}